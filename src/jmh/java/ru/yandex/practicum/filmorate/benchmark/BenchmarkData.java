@@ -0,0 +1,207 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MPA;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongFunction;
+import java.util.stream.LongStream;
+
+/**
+ * Deterministic synthetic data set. The scale is the number of likes, the largest table;
+ * the other tables are sized from it the way they relate in production data.
+ */
+public class BenchmarkData {
+    private static final int BATCH_SIZE = 10_000;
+    private static final int GENRES = 6;
+    private static final int MPA_RATINGS = 5;
+    private static final int FRIENDS_PER_USER = 10;
+    private static final String[] WORDS = {"star", "night", "love", "war", "city", "dark", "river", "king",
+        "ghost", "summer", "iron", "last", "silent", "blue", "golden", "road"};
+
+    private final int likes;
+    private final int users;
+    private final int films;
+    private final int directors;
+
+    public BenchmarkData(int scale) {
+        this.likes = scale;
+        this.users = Math.max(50, scale / 20);
+        this.films = Math.max(100, scale / 10);
+        this.directors = Math.max(5, films / 20);
+    }
+
+    public int userCount() {
+        return users;
+    }
+
+    public int filmCount() {
+        return films;
+    }
+
+    /**
+     * Writes the data set to the database with batch inserts
+     */
+    public void seed(JdbcTemplate jdbc) {
+        insert(jdbc, "INSERT INTO users (id, email, login, name, birthday) VALUES (?, ?, ?, ?, ?)", users,
+                id -> new Object[]{id, "user" + id + "@mail.ru", "user" + id, "User " + id, birthday(id)});
+        insert(jdbc, "INSERT INTO directors (id, name) VALUES (?, ?)", directors,
+                id -> new Object[]{id, directorName(id)});
+        insert(jdbc, "INSERT INTO films (id, name, description, duration, release_date, mpa_id) "
+                + "VALUES (?, ?, ?, ?, ?, ?)", films,
+                id -> new Object[]{id, title(id), "Synthetic film " + id, duration(id), releaseDate(id), mpaId(id)});
+        insert(jdbc, "INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", films,
+                id -> new Object[]{id, genreId(id)});
+        insert(jdbc, "INSERT INTO film_directors (film_id, director_id) VALUES (?, ?)", films,
+                id -> new Object[]{id, directorId(id)});
+        insert(jdbc, "INSERT INTO film_likes (user_id, film_id) VALUES (?, ?)", likes,
+                n -> new Object[]{likeUser(n), likeFilm(n)});
+        insert(jdbc, "INSERT INTO user_friendships (user1_id, user2_id) VALUES (?, ?)", (long) users * FRIENDS_PER_USER,
+                n -> new Object[]{friendshipUser(n), friendshipFriend(n)});
+        insert(jdbc, "INSERT INTO reviews (content, is_positive, user_id, film_id, useful) VALUES (?, ?, ?, ?, ?)",
+                films, n -> new Object[]{"Review " + n, n % 3 != 0, (n - 1) % users + 1, n, n % 21 - 10});
+    }
+
+    /**
+     * Films of the data set with genres, directors and likes filled in, for the in-memory storage
+     */
+    public List<Film> films() {
+        List<Set<Long>> filmLikes = new ArrayList<>(films);
+        for (int i = 0; i < films; i++) {
+            filmLikes.add(new HashSet<>());
+        }
+        LongStream.rangeClosed(1, likes).forEach(n -> filmLikes.get((int) likeFilm(n) - 1).add(likeUser(n)));
+
+        List<Film> result = new ArrayList<>(films);
+        for (long id = 1; id <= films; id++) {
+            Set<Long> likedBy = filmLikes.get((int) id - 1);
+            result.add(Film.builder()
+                    .id(id)
+                    .name(title(id))
+                    .description("Synthetic film " + id)
+                    .duration(duration(id))
+                    .releaseDate(releaseDate(id))
+                    .mpa(new MPA(mpaId(id), null))
+                    .genres(new HashSet<>(Set.of(new Genre(genreId(id), null))))
+                    .directors(new HashSet<>(Set.of(new Director(directorId(id), directorName(directorId(id))))))
+                    .likes(likedBy)
+                    .likeCount(likedBy.size())
+                    .build());
+        }
+        return result;
+    }
+
+    /**
+     * Users of the data set, for the in-memory storage
+     */
+    public List<User> users() {
+        return LongStream.rangeClosed(1, users)
+                .mapToObj(id -> User.builder()
+                        .id(id)
+                        .email("user" + id + "@mail.ru")
+                        .login("user" + id)
+                        .name("User " + id)
+                        .birthday(birthday(id))
+                        .build())
+                .toList();
+    }
+
+    /**
+     * Friendships of the data set as user and friend id pairs
+     */
+    public List<long[]> friendships() {
+        return LongStream.rangeClosed(1, (long) users * FRIENDS_PER_USER)
+                .mapToObj(n -> new long[]{friendshipUser(n), friendshipFriend(n)})
+                .toList();
+    }
+
+    /**
+     * Whether the data set has the like, without building the like sets
+     */
+    public boolean isLiked(long userId, long filmId) {
+        long userLikes = likes / users + (userId <= likes % users ? 1 : 0);
+        return Math.floorMod(filmId - 1 - userId * 7919, films) < userLikes;
+    }
+
+    /**
+     * A title word, so searches match a predictable share of the films
+     */
+    public String searchWord(long n) {
+        return WORDS[(int) (n % WORDS.length)];
+    }
+
+    // each user likes a run of consecutive films starting at a user-specific offset, so neighbours overlap;
+    // isLiked relies on this shape
+    private long likeUser(long n) {
+        return (n - 1) % users + 1;
+    }
+
+    private long likeFilm(long n) {
+        long user = likeUser(n);
+        long nth = (n - 1) / users;
+        return (user * 7919 + nth) % films + 1;
+    }
+
+    private long friendshipUser(long n) {
+        return (n - 1) % users + 1;
+    }
+
+    private long friendshipFriend(long n) {
+        long step = (n - 1) / users + 1;
+        return (friendshipUser(n) - 1 + step * 31) % users + 1;
+    }
+
+    private String title(long id) {
+        return WORDS[(int) (id % WORDS.length)] + " " + WORDS[(int) (id / WORDS.length % WORDS.length)] + " " + id;
+    }
+
+    private String directorName(long id) {
+        return "Director " + WORDS[(int) (id % WORDS.length)] + " " + id;
+    }
+
+    private long directorId(long filmId) {
+        return filmId % directors + 1;
+    }
+
+    private long genreId(long filmId) {
+        return filmId % GENRES + 1;
+    }
+
+    private long mpaId(long filmId) {
+        return filmId % MPA_RATINGS + 1;
+    }
+
+    private int duration(long filmId) {
+        return (int) (80 + filmId % 100);
+    }
+
+    private LocalDate releaseDate(long filmId) {
+        return LocalDate.of(1950, 1, 1).plusDays(filmId * 7 % 27_000);
+    }
+
+    private LocalDate birthday(long userId) {
+        return LocalDate.of(1960, 1, 1).plusDays(userId % 15_000);
+    }
+
+    private static void insert(JdbcTemplate jdbc, String sql, long rows, LongFunction<Object[]> row) {
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (long n = 1; n <= rows; n++) {
+            batch.add(row.apply(n));
+            if (batch.size() == BATCH_SIZE) {
+                jdbc.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbc.batchUpdate(sql, batch);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.LikeService;
+import ru.yandex.practicum.filmorate.service.ParallelLookups;
+import ru.yandex.practicum.filmorate.service.RecommendationEngine;
+import ru.yandex.practicum.filmorate.service.ResourceVersions;
+import ru.yandex.practicum.filmorate.service.ReviewService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.DirectorStorage;
+import ru.yandex.practicum.filmorate.storage.EventStorage;
+import ru.yandex.practicum.filmorate.storage.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.LikeStorage;
+import ru.yandex.practicum.filmorate.storage.MPAStorage;
+import ru.yandex.practicum.filmorate.storage.ReviewStorage;
+import ru.yandex.practicum.filmorate.storage.cache.FilmDetailsCache;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.util.Map;
+
+/**
+ * Application context over a seeded H2 database and the services under test.
+ * With storage=memory the services get {@link InMemoryFilmStorage}, {@link InMemoryUserStorage} and
+ * {@link InMemoryLikeStorage} filled with the same data set. Reviews, the event feed, genres, MPA ratings and
+ * directors have no in-memory variant and stay on the database in both modes, so findTopReviews is database-only,
+ * and addLike still queues its feed event for the database. Recommendations are scored on the like graph loaded
+ * from the database in both modes; only the films they return are read from the chosen storage.
+ */
+@State(Scope.Benchmark)
+public class FilmorateState {
+    @Param({"1000", "100000", "1000000"})
+    public int scale;
+
+    @Param({"db", "memory"})
+    public String storage;
+
+    public BenchmarkData data;
+    public FilmService filmService;
+    public UserService userService;
+    public LikeService likeService;
+    public ReviewService reviewService;
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = new BenchmarkData(scale);
+        SpringApplication application = new SpringApplication(FilmorateApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        application.setDefaultProperties(Map.of(
+                "spring.datasource.url", "jdbc:h2:mem:benchmark-" + scale + "-" + storage,
+                "logging.level.root", "WARN",
+                "logging.level.org.springframework.validation", "WARN",
+                "logging.level.org.zalando.logbook", "WARN"));
+        // seeded as soon as the schema exists, before like counts are recounted and the in-memory indexes load
+        application.addInitializers(initialized -> initialized.getBeanFactory()
+                .addBeanPostProcessor(new BeanPostProcessor() {
+                    @Override
+                    public Object postProcessAfterInitialization(Object bean, String beanName) {
+                        if (bean instanceof JdbcTemplate jdbc) {
+                            data.seed(jdbc);
+                        }
+                        return bean;
+                    }
+                }));
+        context = application.run();
+
+        if ("memory".equals(storage)) {
+            wireInMemoryStorages();
+        } else {
+            filmService = context.getBean(FilmService.class);
+            userService = context.getBean(UserService.class);
+            likeService = context.getBean(LikeService.class);
+            reviewService = context.getBean(ReviewService.class);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private void wireInMemoryStorages() {
+        InMemoryFilmStorage films = new InMemoryFilmStorage();
+        data.films().forEach(films::create);
+        InMemoryUserStorage users = new InMemoryUserStorage();
+        data.users().forEach(users::create);
+        data.friendships().forEach(pair -> users.addFriendship(pair[0], pair[1]));
+
+        EventStorage events = context.getBean(EventStorage.class);
+        ParallelLookups lookups = context.getBean(ParallelLookups.class);
+        LikeStorage likes = new InMemoryLikeStorage(films);
+        GenreStorage genres = context.getBean(GenreStorage.class);
+        ResourceVersions versions = context.getBean(ResourceVersions.class);
+        filmService = new FilmService(films, context.getBean(MPAStorage.class), genres,
+                context.getBean(DirectorStorage.class), context.getBean(ReferenceDataCache.class),
+                context.getBean(FilmDetailsCache.class), versions);
+        userService = new UserService(users, events, films,
+                context.getBean(RecommendationEngine.class), genres, versions);
+        likeService = new LikeService(likes, users, films, events, lookups, versions);
+        reviewService = new ReviewService(context.getBean(ReviewStorage.class), users, films, events, lookups);
+    }
+}
@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ru.yandex.practicum.filmorate.storage.LikeStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Likes kept by {@link InMemoryFilmStorage}, so the like path of storage=memory never reaches the database
+ */
+class InMemoryLikeStorage extends LikeStorage {
+    private final InMemoryFilmStorage films;
+
+    InMemoryLikeStorage(InMemoryFilmStorage films) {
+        super(null, null);
+        this.films = films;
+    }
+
+    @Override
+    public boolean addLike(Long userId, Long filmId) {
+        return films.addLike(userId, filmId);
+    }
+
+    @Override
+    public boolean removeLike(Long userId, Long filmId) {
+        return films.removeLike(userId, filmId);
+    }
+
+    @Override
+    public Set<Long> getFilmLikes(Long filmId) {
+        return new HashSet<>(films.getLikes(filmId));
+    }
+}
@@ -0,0 +1,101 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.metrics.InstrumentedDataSource;
+import ru.yandex.practicum.filmorate.storage.metrics.JdbcMetrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the JDBC metrics: the same primary key lookup through a plain and an instrumented DataSource,
+ * issued from a storage-like bean and taking its own connection, as a JdbcTemplate call outside a transaction
+ * does. The connection is a single H2 session, so the difference is the instrumentation, not the pool.
+ * callerName measures the stack walk alone, which the instrumentation does once per connection.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JdbcMetricsBenchmark {
+    private static final String QUERY = "SELECT name FROM items WHERE id = ?";
+
+    private SingleConnectionDataSource dataSource;
+    private ItemStorage plain;
+    private ItemStorage instrumented;
+
+    /**
+     * Stands in for a storage, so statements are named item.find as they would be film.getById
+     */
+    @Component
+    static class ItemStorage {
+        private final JdbcTemplate jdbc;
+
+        ItemStorage(JdbcTemplate jdbc) {
+            this.jdbc = jdbc;
+        }
+
+        String find(long id) {
+            return jdbc.queryForObject(QUERY, String.class, id);
+        }
+
+        String callerName() {
+            return JdbcMetrics.callerName();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:jdbc-metrics");
+        dataSource = new SingleConnectionDataSource(h2.getURL(), true);
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE items (id BIGINT PRIMARY KEY, name VARCHAR(40))");
+        jdbc.update("INSERT INTO items VALUES (1, 'item')");
+        plain = new ItemStorage(jdbc);
+
+        DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+        beans.registerSingleton("meterRegistry", new SimpleMeterRegistry());
+        JdbcMetrics metrics = new JdbcMetrics(beans.getBeanProvider(MeterRegistry.class));
+        instrumented = new ItemStorage(new JdbcTemplate(InstrumentedDataSource.wrap(dataSource, metrics)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public String plain() {
+        return plain.find(1L);
+    }
+
+    @Benchmark
+    public String instrumented() {
+        return instrumented.find(1L);
+    }
+
+    @Benchmark
+    public String callerName() {
+        return instrumented.callerName();
+    }
+}
@@ -0,0 +1,86 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service hot paths. Ids are drawn from a fixed-seed random sequence so every run and every
+ * storage variant sees the same requests.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class ServiceBenchmark {
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Benchmark
+    public List<Film> getTop(FilmorateState state) {
+        return state.filmService.getTop(10, null, null);
+    }
+
+    @Benchmark
+    public List<Film> search(FilmorateState state) {
+        return state.filmService.search(state.data.searchWord(random.nextInt(1000)), "title,director");
+    }
+
+    @Benchmark
+    public List<Film> getRecommendations(FilmorateState state) {
+        return state.userService.getRecommendations(userId(state));
+    }
+
+    @Benchmark
+    public List<Review> findTopReviews(FilmorateState state) {
+        return state.reviewService.findTop(null, 10);
+    }
+
+    /**
+     * Adds a like the data set does not have and takes it back, so film_likes stays as seeded during the run
+     */
+    @Benchmark
+    public void addLike(FilmorateState state) {
+        long filmId;
+        long userId;
+        do {
+            filmId = filmId(state);
+            userId = userId(state);
+        } while (state.data.isLiked(userId, filmId));
+        state.likeService.addLike(filmId, userId);
+        state.likeService.removeLike(filmId, userId);
+    }
+
+    @Benchmark
+    public List<User> getCommonFriends(FilmorateState state) {
+        long userId = userId(state);
+        return state.userService.getCommonFriend(userId, otherUserId(state, userId));
+    }
+
+    private long userId(FilmorateState state) {
+        return random.nextInt(state.data.userCount()) + 1;
+    }
+
+    private long otherUserId(FilmorateState state, long userId) {
+        int users = state.data.userCount();
+        return (userId + random.nextInt(users - 1)) % users + 1;
+    }
+
+    private long filmId(FilmorateState state) {
+        return random.nextInt(state.data.filmCount()) + 1;
+    }
+}
@@ -5,8 +5,10 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.service.DirectorService;
+import ru.yandex.practicum.filmorate.service.ResourceVersions;
 
 import java.util.List;
 
@@ -15,14 +17,21 @@ import java.util.List;
 @RequiredArgsConstructor
 public class DirectorController {
     private final DirectorService directorService;
+    private final ResourceVersions resourceVersions;
 
     @GetMapping
-    public List<Director> getAll() {
+    public List<Director> getAll(WebRequest request) {
+        if (request.checkNotModified(resourceVersions.directors())) {
+            return null;
+        }
         return directorService.getAll();
     }
 
     @GetMapping("/{id}")
-    public Director getByID(@PathVariable long id) {
+    public Director getByID(@PathVariable long id, WebRequest request) {
+        if (request.checkNotModified(resourceVersions.directors())) {
+            return null;
+        }
         return directorService.getById(id);
     }
 
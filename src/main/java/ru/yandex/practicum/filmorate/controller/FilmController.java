@@ -1,39 +1,87 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.exception.ValidationMarker;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.dto.FilmImportResult;
+import ru.yandex.practicum.filmorate.service.FilmImportService;
 import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.LikeService;
+import ru.yandex.practicum.filmorate.service.ResourceVersions;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
 @RequestMapping("/films")
 @RequiredArgsConstructor
 public class FilmController {
+    /**
+     * Larger counts are served as this many films, so the cache holds at most one list per filter
+     */
+    private static final int MAX_POPULAR_COUNT = 1000;
+
     private final FilmService filmService;
     private final LikeService likeService;
+    private final FilmImportService filmImportService;
+    private final ObjectMapper objectMapper;
+    private final NdjsonStreams ndjsonStreams;
+    private final ResourceVersions resourceVersions;
+    private final JsonBytesCache jsonBytesCache;
 
     @GetMapping
     public List<Film> getAll() {
         return filmService.getAll();
     }
 
+    /**
+     * Streams all films with their genres and directors as NDJSON, reading them in pages by id as they are written
+     */
+    @GetMapping(value = "/export", produces = NdjsonStreams.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> export() {
+        return ndjsonStreams.of(filmService::exportAll);
+    }
+
+    /**
+     * Answers 304 without loading the film when If-None-Match carries its current ETag,
+     * otherwise writes the cached JSON of the film if it has not changed since it was serialized
+     */
     @GetMapping("/{id}")
-    public Film getByID(@PathVariable long id) {
-        return filmService.getById(id);
+    public ResponseEntity<byte[]> getByID(@PathVariable long id, WebRequest request) {
+        String etag = resourceVersions.film(id);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return jsonBytesCache.get("film:" + id, etag, () -> filmService.getById(id));
     }
 
     @GetMapping("/popular")
-    public List<Film> getTop(@RequestParam(defaultValue = "10") int count,
-                             @RequestParam(required = false) Integer genreId,
-                             @RequestParam(required = false) Integer year) {
-        return filmService.getTop(count, genreId, year);
+    public ResponseEntity<byte[]> getTop(@RequestParam(defaultValue = "10") int count,
+                                         @RequestParam(required = false) Integer genreId,
+                                         @RequestParam(required = false) Integer year,
+                                         WebRequest request) {
+        if (count <= 0) {
+            throw new ValidationException("Count must be positive");
+        }
+        int limit = Math.min(count, MAX_POPULAR_COUNT);
+        String etag = resourceVersions.popular();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return jsonBytesCache.get("popular:" + limit + ":" + genreId + ":" + year, etag,
+                () -> filmService.getTop(limit, genreId, year));
     }
 
     @GetMapping("/director/{directorId}")
@@ -53,6 +101,16 @@ public class FilmController {
         return filmService.create(film);
     }
 
+    /**
+     * Imports films sent as NDJSON or as a JSON array, reading them as they arrive
+     */
+    @PostMapping(value = "/bulk", consumes = {NdjsonStreams.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    public FilmImportResult importFilms(InputStream body) throws IOException {
+        try (MappingIterator<Film> films = objectMapper.readerFor(Film.class).readValues(body)) {
+            return filmImportService.importFilms(films);
+        }
+    }
+
     @PutMapping("/{id}/like/{userId}")
     public void addLike(@PathVariable long id, @PathVariable long userId) {
         likeService.addLike(id, userId);
@@ -7,8 +7,10 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.service.GenreService;
+import ru.yandex.practicum.filmorate.service.ResourceVersions;
 
 import java.util.List;
 
@@ -18,14 +20,21 @@ import java.util.List;
 @RequiredArgsConstructor
 public class GenreController {
     private final GenreService genreService;
+    private final ResourceVersions resourceVersions;
 
     @GetMapping
-    public List<Genre> getAll() {
+    public List<Genre> getAll(WebRequest request) {
+        if (request.checkNotModified(resourceVersions.referenceData())) {
+            return null;
+        }
         return genreService.getAll();
     }
 
     @GetMapping("/{id}")
-    public Genre getByID(@PathVariable long id) {
+    public Genre getByID(@PathVariable long id, WebRequest request) {
+        if (request.checkNotModified(resourceVersions.referenceData())) {
+            return null;
+        }
         return genreService.getById(id);
     }
 }
@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.zalando.logbook.HttpRequest;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Decides which HTTP exchanges Logbook logs: every request is logged with the probability of the first
+ * filmorate.http-log.sample-rates pattern its path matches, or with filmorate.http-log.sample-rate otherwise.
+ * Replaces Logbook's own requestCondition bean; the logbook.predicate excludes still apply on top of it.
+ * Requests that are not sampled are not buffered at all.
+ */
+@Component("requestCondition")
+public class HttpExchangeSampler implements Predicate<HttpRequest> {
+    private static final AntPathMatcher MATCHER = new AntPathMatcher();
+
+    private final double defaultRate;
+    private final List<Rule> rules;
+
+    private record Rule(String pattern, double rate) {
+    }
+
+    /**
+     * @param rules - Ant-style pattern=rate pairs, e.g. /films/popular=0.01,/films/director/**=0.1
+     */
+    public HttpExchangeSampler(@Value("${filmorate.http-log.sample-rate:1.0}") double defaultRate,
+                               @Value("${filmorate.http-log.sample-rates:}") List<String> rules) {
+        this.defaultRate = rate(defaultRate);
+        this.rules = rules.stream()
+                .filter(rule -> !rule.isBlank())
+                .map(HttpExchangeSampler::parse)
+                .toList();
+    }
+
+    @Override
+    public boolean test(HttpRequest request) {
+        return sample(request.getPath());
+    }
+
+    boolean sample(String path) {
+        double rate = rateFor(path);
+        return rate >= 1.0 || rate > 0.0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    double rateFor(String path) {
+        for (Rule rule : rules) {
+            if (MATCHER.match(rule.pattern(), path)) {
+                return rule.rate();
+            }
+        }
+        return defaultRate;
+    }
+
+    private static Rule parse(String rule) {
+        int separator = rule.lastIndexOf('=');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Expected pattern=rate in filmorate.http-log.sample-rates: " + rule);
+        }
+        return new Rule(rule.substring(0, separator).trim(), rate(Double.parseDouble(rule.substring(separator + 1))));
+    }
+
+    private static double rate(double rate) {
+        if (rate < 0.0 || rate > 1.0) {
+            throw new IllegalArgumentException("Sample rate must be between 0 and 1: " + rate);
+        }
+        return rate;
+    }
+}
@@ -0,0 +1,121 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Least recently used cache of serialized response bodies, kept as the UTF-8 bytes that go to the client.
+ * Every body is stored with the ETag it was loaded under and is served only while that tag is current,
+ * so the version counters behind the tags invalidate it and a stale body is never written.
+ * Bounded by the total size of the bodies, filmorate.http.json-cache-max-bytes.
+ */
+@Component
+public class JsonBytesCache implements MeterBinder {
+    private static final String NAME = "json";
+
+    private final ObjectMapper objectMapper;
+    private final long maxBytes;
+    private final Map<String, Entry> bodies = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private long bytes;
+
+    private record Entry(String etag, byte[] body) {
+    }
+
+    public JsonBytesCache(ObjectMapper objectMapper,
+                          @Value("${filmorate.http.json-cache-max-bytes:67108864}") long maxBytes) {
+        this.objectMapper = objectMapper;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * JSON response with the cached body if it was stored under the same ETag, otherwise with the loaded one
+     *
+     * @param key    - identifies the body regardless of its version, e.g. film:42
+     * @param etag   - current tag of the resource, read before loading it
+     * @param loader - loads the value to serialize; nothing is cached when it throws
+     */
+    public ResponseEntity<byte[]> get(String key, String etag, Supplier<?> loader) {
+        byte[] body = cached(key, etag);
+        if (body == null) {
+            body = serialize(loader.get());
+            put(key, etag, body);
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .body(body);
+    }
+
+    public synchronized int size() {
+        return bodies.size();
+    }
+
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("filmorate.cache.size", this, JsonBytesCache::size)
+                .tag("cache", NAME)
+                .register(registry);
+        Gauge.builder("filmorate.cache.bytes", this, JsonBytesCache::bytes)
+                .tag("cache", NAME)
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder("filmorate.cache.hits", hits, LongAdder::sum)
+                .tag("cache", NAME)
+                .register(registry);
+        FunctionCounter.builder("filmorate.cache.misses", misses, LongAdder::sum)
+                .tag("cache", NAME)
+                .register(registry);
+    }
+
+    private synchronized byte[] cached(String key, String etag) {
+        Entry entry = bodies.get(key);
+        if (entry != null && entry.etag().equals(etag)) {
+            hits.increment();
+            return entry.body();
+        }
+        misses.increment();
+        return null;
+    }
+
+    private synchronized void put(String key, String etag, byte[] body) {
+        if (body.length > maxBytes) {
+            return;
+        }
+        Entry previous = bodies.put(key, new Entry(etag, body));
+        bytes += body.length - (previous == null ? 0 : previous.body().length);
+        Iterator<Entry> eldest = bodies.values().iterator();
+        while (bytes > maxBytes) {
+            bytes -= eldest.next().body().length;
+            eldest.remove();
+        }
+    }
+
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -7,8 +7,10 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.MPA;
 import ru.yandex.practicum.filmorate.service.MPAService;
+import ru.yandex.practicum.filmorate.service.ResourceVersions;
 import java.util.List;
 
 @RestController
@@ -17,14 +19,21 @@ import java.util.List;
 @RequiredArgsConstructor
 public class MPAController {
     private final MPAService mpaService;
+    private final ResourceVersions resourceVersions;
 
     @GetMapping
-    public List<MPA> getAll() {
+    public List<MPA> getAll(WebRequest request) {
+        if (request.checkNotModified(resourceVersions.referenceData())) {
+            return null;
+        }
         return mpaService.getAll();
     }
 
     @GetMapping("/{id}")
-    public MPA getByID(@PathVariable long id) {
+    public MPA getByID(@PathVariable long id, WebRequest request) {
+        if (request.checkNotModified(resourceVersions.referenceData())) {
+            return null;
+        }
         return mpaService.getById(id);
     }
 }
@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes records to the response as newline-delimited JSON while they are produced.
+ * Records are not flushed one by one, the response buffer goes out whenever it fills up.
+ */
+@Component
+public class NdjsonStreams {
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+    private static final MediaType NDJSON = MediaType.parseMediaType(MEDIA_TYPE);
+
+    private final ObjectWriter writer;
+
+    public NdjsonStreams(ObjectMapper objectMapper) {
+        this.writer = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("");
+    }
+
+    /**
+     * @param source - passes every record to the consumer it is given
+     */
+    public <T> ResponseEntity<StreamingResponseBody> of(Consumer<Consumer<T>> source) {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = writer.createGenerator(out)) {
+                source.accept(record -> {
+                    try {
+                        writer.writeValue(generator, record);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        // the client went away, stop reading the source
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+}
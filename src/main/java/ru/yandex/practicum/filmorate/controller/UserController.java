@@ -4,8 +4,10 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.exception.ValidationMarker;
 import ru.yandex.practicum.filmorate.model.Event;
 import ru.yandex.practicum.filmorate.model.Film;
@@ -21,12 +23,21 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class UserController {
     private final UserService userService;
+    private final NdjsonStreams ndjsonStreams;
 
     @GetMapping
     public List<User> getAll() {
         return userService.getAll();
     }
 
+    /**
+     * Streams all users as NDJSON, reading them in pages by id as they are written
+     */
+    @GetMapping(value = "/export", produces = NdjsonStreams.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> export() {
+        return ndjsonStreams.of(userService::exportAll);
+    }
+
     @GetMapping("/{id}/friends")
     public List<User> getFriends(@PathVariable long id) {
         return userService.getFriends(id);
@@ -71,8 +82,10 @@ public class UserController {
     }
 
     @GetMapping("{userId}/feed")
-    public List<Event> getUserFeed(@PathVariable Long userId) {
-        return userService.getEventsByUserId(userId);
+    public List<Event> getUserFeed(@PathVariable Long userId,
+                                   @RequestParam(required = false) Long after,
+                                   @RequestParam(required = false) Integer limit) {
+        return userService.getEventsByUserId(userId, after, limit);
     }
 
     @GetMapping("/{id}/recommendations")
@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk film import. Films are numbered from 0 in the order they were sent;
+ * only the first {@link #MAX_REPORTED} rejections are listed, rejectedCount has them all.
+ */
+@Data
+public class FilmImportResult {
+    public static final int MAX_REPORTED = 1000;
+
+    private int imported;
+    private int rejectedCount;
+    private List<Rejection> rejected = new ArrayList<>();
+
+    public void reject(int index, String error) {
+        if (rejectedCount++ < MAX_REPORTED) {
+            rejected.add(new Rejection(index, error));
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Rejection {
+        private int index;
+        private String error;
+    }
+}
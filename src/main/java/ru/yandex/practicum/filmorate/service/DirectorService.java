@@ -7,6 +7,9 @@ import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.storage.DirectorStorage;
+import ru.yandex.practicum.filmorate.storage.cache.FilmDetailsCache;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceCache;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceDataCache;
 
 import java.util.List;
 
@@ -15,6 +18,9 @@ import java.util.List;
 @RequiredArgsConstructor
 public class DirectorService {
     private final DirectorStorage directorStorage;
+    private final ReferenceDataCache referenceDataCache;
+    private final FilmDetailsCache filmDetailsCache;
+    private final ResourceVersions resourceVersions;
 
     /**
      * Retrieves a director by ID
@@ -23,7 +29,7 @@ public class DirectorService {
      * @return {@link Director}
      */
     public Director getById(Long directorId) {
-        return directorStorage.getById(directorId).orElseThrow(() ->
+        return directors().getById(directorId).orElseThrow(() ->
                 new NotFoundException("Director with ID %d not found".formatted(directorId)));
     }
 
@@ -33,7 +39,7 @@ public class DirectorService {
      * @return {@link List<Director>}
      */
     public List<Director> getAll() {
-        return directorStorage.getAll();
+        return directors().getAll();
     }
 
     /**
@@ -43,8 +49,11 @@ public class DirectorService {
      * @return {@link Director}
      */
     public Director create(Director director) {
-        director.setId(generateId());
-        return directorStorage.create(director);
+        director.setId(directorStorage.nextId());
+        Director created = directorStorage.create(director);
+        directors().invalidate();
+        resourceVersions.directorsChanged();
+        return created;
     }
 
     /**
@@ -56,9 +65,14 @@ public class DirectorService {
      */
     public Director update(Director newDirector) {
         log.debug("Checking existence of director with ID {} for updating", newDirector.getId());
-        if (directorStorage.getById(newDirector.getId()).isPresent()) {
+        if (directors().getById(newDirector.getId()).isPresent()) {
             log.trace("Updating film in storage");
-            return directorStorage.update(newDirector);
+            Director updated = directorStorage.update(newDirector);
+            directors().invalidate();
+            filmDetailsCache.invalidateAll();
+            resourceVersions.directorsChanged();
+            resourceVersions.filmsChanged();
+            return updated;
         }
         log.warn("Film with ID {} not found", newDirector.getId());
         throw new NotFoundException("Film not found!");
@@ -72,19 +86,19 @@ public class DirectorService {
      */
     public void deleteById(Long directorId) {
         log.debug("Checking existence of director with ID {} for deleting", directorId);
-        if (directorStorage.getById(directorId).isEmpty()) {
+        if (directors().getById(directorId).isEmpty()) {
             log.warn("Director with ID {} not found", directorId);
             throw new NotFoundException("Director not found!");
         }
         log.trace("Deleting director in storage");
         directorStorage.deleteById(directorId);
+        directors().invalidate();
+        filmDetailsCache.invalidateAll();
+        resourceVersions.directorsChanged();
+        resourceVersions.filmsChanged();
     }
 
-    private Long generateId() {
-        Long currentId = directorStorage.getAll().stream()
-                .mapToLong(Director::getId)
-                .max()
-                .orElse(0);
-        return ++currentId;
+    private ReferenceCache<Director> directors() {
+        return referenceDataCache.getDirectors();
     }
 }
@@ -0,0 +1,142 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.exception.ValidationMarker;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.dto.FilmImportResult;
+import ru.yandex.practicum.filmorate.storage.DirectorStorage;
+import ru.yandex.practicum.filmorate.storage.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.MPAStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Loads films in bulk. Films are validated one by one against the cached reference data and written
+ * in chunks of import-chunk-size: one id allocation and one JDBC batch per table per chunk, each chunk
+ * in its own transaction. Invalid films are reported and skipped, a chunk that fails to write is
+ * reported as a whole, and a malformed film ends the import with the chunks before it kept.
+ */
+@Service
+@Slf4j
+public class FilmImportService {
+    private final FilmService filmService;
+    private final FilmStorage filmStorage;
+    private final MPAStorage mpaStorage;
+    private final GenreStorage genreStorage;
+    private final DirectorStorage directorStorage;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final ResourceVersions resourceVersions;
+    private final int chunkSize;
+
+    public FilmImportService(FilmService filmService, FilmStorage filmStorage, MPAStorage mpaStorage,
+                             GenreStorage genreStorage, DirectorStorage directorStorage, Validator validator,
+                             PlatformTransactionManager transactionManager, ResourceVersions resourceVersions,
+                             @Value("${filmorate.films.import-chunk-size:1000}") int chunkSize) {
+        this.filmService = filmService;
+        this.filmStorage = filmStorage;
+        this.mpaStorage = mpaStorage;
+        this.genreStorage = genreStorage;
+        this.directorStorage = directorStorage;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.resourceVersions = resourceVersions;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Imports films as they are read
+     *
+     * @param films - films without ids, read lazily
+     * @return {@link FilmImportResult}
+     */
+    public FilmImportResult importFilms(Iterator<Film> films) {
+        FilmImportResult result = new FilmImportResult();
+        List<Film> chunk = new ArrayList<>(chunkSize);
+        List<Integer> positions = new ArrayList<>(chunkSize);
+        for (int index = 0; ; index++) {
+            Film film;
+            try {
+                if (!films.hasNext()) {
+                    break;
+                }
+                film = films.next();
+            } catch (RuntimeException e) {
+                log.warn("Film import stopped at malformed film {}", index, e);
+                result.reject(index, "Malformed film: " + e.getMessage());
+                break;
+            }
+            String error = validate(film);
+            if (error != null) {
+                result.reject(index, error);
+                continue;
+            }
+            chunk.add(film);
+            positions.add(index);
+            if (chunk.size() == chunkSize) {
+                write(chunk, positions, result);
+            }
+        }
+        write(chunk, positions, result);
+        log.info("Imported {} films, rejected {}", result.getImported(), result.getRejectedCount());
+        return result;
+    }
+
+    private String validate(Film film) {
+        Set<ConstraintViolation<Film>> violations = validator.validate(film, ValidationMarker.OnCreate.class);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        if (film.getMpa() == null) {
+            return "MPA rating is required";
+        }
+        try {
+            filmService.validateFilm(film);
+            return null;
+        } catch (ValidationException e) {
+            return e.getMessage();
+        }
+    }
+
+    private void write(List<Film> chunk, List<Integer> positions, FilmImportResult result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        long[] ids = filmStorage.nextIds(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            chunk.get(i).setId(ids[i]);
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                filmStorage.createAll(chunk);
+                mpaStorage.saveMPA(chunk);
+                genreStorage.saveGenres(chunk);
+                directorStorage.saveDirectors(chunk);
+            });
+            result.setImported(result.getImported() + chunk.size());
+            chunk.forEach(film -> resourceVersions.filmChanged(film.getId()));
+        } catch (DataAccessException e) {
+            log.warn("Failed to write films {} to {}", positions.get(0), positions.get(positions.size() - 1), e);
+            String error = "Failed to write: " + e.getMostSpecificCause().getMessage();
+            positions.forEach(index -> result.reject(index, error));
+        }
+        chunk.clear();
+        positions.clear();
+    }
+}
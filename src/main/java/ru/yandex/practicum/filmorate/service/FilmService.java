@@ -12,12 +12,14 @@ import ru.yandex.practicum.filmorate.model.enums.FilmsSearchBy;
 import ru.yandex.practicum.filmorate.model.enums.SortType;
 import ru.yandex.practicum.filmorate.storage.DirectorStorage;
 import ru.yandex.practicum.filmorate.storage.GenreStorage;
-import ru.yandex.practicum.filmorate.storage.LikeStorage;
 import ru.yandex.practicum.filmorate.storage.MPAStorage;
+import ru.yandex.practicum.filmorate.storage.cache.FilmDetailsCache;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceDataCache;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,7 +30,9 @@ public class FilmService {
     private final MPAStorage mpaStorage;
     private final GenreStorage genreStorage;
     private final DirectorStorage directorStorage;
-    private final LikeStorage likeStorage;
+    private final ReferenceDataCache referenceDataCache;
+    private final FilmDetailsCache filmDetailsCache;
+    private final ResourceVersions resourceVersions;
     private static final LocalDate MIN_DATE = LocalDate.of(1895, 12, 28);
 
     /**
@@ -42,6 +46,15 @@ public class FilmService {
         return films;
     }
 
+    /**
+     * Passes every film with its MPA, genres and directors to the action in id order, reading them as they go.
+     *
+     * @param action
+     */
+    public void exportAll(Consumer<Film> action) {
+        filmStorage.forEachWithDetails(action);
+    }
+
     /**
      * Retrieves a director by its ID.
      *
@@ -50,12 +63,8 @@ public class FilmService {
      * @throws NotFoundException
      */
     public Film getById(long id) {
-        Film film = filmStorage.getById(id)
+        return filmDetailsCache.get(id, () -> filmStorage.getDetailsById(id))
                 .orElseThrow(() -> new NotFoundException("Film with id %d not found".formatted(id)));
-        film.setGenres(genreStorage.getFilmGenres(id));
-        film.setDirectors(directorStorage.getAllDirectorByFilmID(id));
-        sortAndSetGenres(film);
-        return film;
     }
 
     /**
@@ -70,12 +79,13 @@ public class FilmService {
         validateFilm(film);
         log.trace("Setting film ID");
         //set film id
-        film.setId(generateId());
+        film.setId(filmStorage.nextId());
         log.trace("Adding film to storage");
         filmStorage.create(film);
         mpaStorage.saveMPA(film);
         genreStorage.saveGenres(film);
         directorStorage.saveDirectors(film);
+        resourceVersions.filmChanged(film.getId());
 
         sortAndSetGenres(film);
 
@@ -97,6 +107,8 @@ public class FilmService {
             directorStorage.updateDirectors(newFilm);
 
             sortAndSetGenres(newFilm);
+            filmDetailsCache.invalidate(newFilm.getId());
+            resourceVersions.filmChanged(newFilm.getId());
 
             return newFilm;
         }
@@ -113,17 +125,7 @@ public class FilmService {
      * @return {@link List<Film>}
      */
     public List<Film> getTop(int count, Integer genreId, Integer year) {
-        List<Film> films;
-
-        if (genreId != null && year != null) {
-            films = filmStorage.getTopYearAndGenre(count, genreId, year);
-        } else if (genreId != null) {
-            films = filmStorage.getTopByGenre(count, genreId);
-        } else if (year != null) {
-            films = filmStorage.getTopByYear(count, year);
-        } else {
-            films = filmStorage.getTop(count);
-        }
+        List<Film> films = filmStorage.getTop(count, genreId, year);
 
         setGenresForFilms(films);
         setDirectorsForFilms(films);
@@ -131,7 +133,7 @@ public class FilmService {
     }
 
     public List<Film> getFilmsByDirectorSorted(Long directorId, String sortBy) {
-        directorStorage.getById(directorId)
+        referenceDataCache.getDirectors().getById(directorId)
                 .orElseThrow(() -> new NotFoundException("Director with id " + directorId + " not found"));
 
         SortType sortType = SortType.fromString(sortBy);
@@ -169,7 +171,7 @@ public class FilmService {
      * @param films
      */
     private void setGenresForFilms(List<Film> films) {
-        Map<Long, Set<Genre>> filmGenres = genreStorage.getAllFilmsGenres();
+        Map<Long, Set<Genre>> filmGenres = genreStorage.getFilmsGenres(filmIds(films));
         for (Film film : films) {
             Set<Genre> genres = filmGenres.getOrDefault(film.getId(), new HashSet<>());
 
@@ -188,40 +190,23 @@ public class FilmService {
      * @param films
      */
     private void setDirectorsForFilms(List<Film> films) {
-        Map<Long, Set<Director>> filmsDirectors = directorStorage.getAllFilmsDirectors();
+        Map<Long, Set<Director>> filmsDirectors = directorStorage.getFilmsDirectors(filmIds(films));
         for (Film film : films) {
             Set<Director> directors = filmsDirectors.getOrDefault(film.getId(), new HashSet<>());
             film.setDirectors(directors);
         }
     }
 
-    private void setLikesForFilms(List<Film> films) {
-        Map<Long, Set<Long>> filmsLikes = likeStorage.getAllFilmLikes();
-        for (Film film : films) {
-            film.setLikes(filmsLikes.getOrDefault(film.getId(), new HashSet<>()));
-        }
+    private static List<Long> filmIds(List<Film> films) {
+        return films.stream().map(Film::getId).toList();
     }
 
     private void setAdditionalFieldsForFilms(List<Film> films) {
         setGenresForFilms(films);
         setDirectorsForFilms(films);
-        setLikesForFilms(films);
     }
 
 
-    /**
-     * Generates a new unique ID for a film.
-     *
-     * @return {@link Long}
-     */
-    private Long generateId() {
-        Long currentId = filmStorage.getAll().stream()
-                .mapToLong(Film::getId)
-                .max()
-                .orElse(0);
-        return ++currentId;
-    }
-
     /**
      * Validate Genres
      *
@@ -230,15 +215,11 @@ public class FilmService {
     private void validateFilmGenres(Film film) {
         // Validate genres
         if (film.getGenres() != null && !film.getGenres().isEmpty()) {
-            Set<Long> availableGenreIds = genreStorage.getAll().stream()
-                    .map(Genre::getId)
-                    .collect(Collectors.toSet());
-
             Set<Long> filmGenreIds = film.getGenres().stream()
                     .map(Genre::getId)
                     .collect(Collectors.toSet());
 
-            if (!availableGenreIds.containsAll(filmGenreIds)) {
+            if (!referenceDataCache.getGenres().containsAll(filmGenreIds)) {
                 throw new ValidationException("Invalid film genre!");
             }
         }
@@ -252,15 +233,11 @@ public class FilmService {
     private void validateFilmDirector(Film film) {
         // Validate directors
         if (film.getDirectors() != null && !film.getDirectors().isEmpty()) {
-            Set<Long> availableDirectorIds = directorStorage.getAll().stream()
-                    .map(Director::getId)
-                    .collect(Collectors.toSet());
-
             Set<Long> filmDirectorsIds = film.getDirectors().stream()
                     .map(Director::getId)
                     .collect(Collectors.toSet());
 
-            if (!availableDirectorIds.containsAll(filmDirectorsIds)) {
+            if (!referenceDataCache.getDirectors().containsAll(filmDirectorsIds)) {
                 throw new ValidationException("Invalid film director!");
             }
         }
@@ -273,7 +250,7 @@ public class FilmService {
      */
     private void validateFilmMPA(Film film) {
         // Validate MPA rating
-        if (film.getMpa() != null && mpaStorage.getById(film.getMpa().getId()).isEmpty()) {
+        if (film.getMpa() != null && referenceDataCache.getMpa().getById(film.getMpa().getId()).isEmpty()) {
             throw new ValidationException("Invalid MPA ID: " + film.getMpa().getId());
         }
     }
@@ -297,7 +274,7 @@ public class FilmService {
      *
      * @param film
      */
-    private void validateFilm(Film film) {
+    void validateFilm(Film film) {
         // Validation methods:
         validateReleaseDate(film);
         validateFilmMPA(film);
@@ -338,6 +315,7 @@ public class FilmService {
         }
         log.trace("Deleting film ID {}", filmId);
         filmStorage.deleteById(filmId);
+        resourceVersions.filmChanged(filmId);
         log.info("Successfully deleted film with ID {}", filmId);
     }
 }
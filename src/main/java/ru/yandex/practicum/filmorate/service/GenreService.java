@@ -6,7 +6,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Genre;
-import ru.yandex.practicum.filmorate.storage.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceDataCache;
 
 import java.util.List;
 
@@ -14,7 +14,7 @@ import java.util.List;
 @Slf4j
 @RequiredArgsConstructor
 public class GenreService {
-    private final GenreStorage genreStorage;
+    private final ReferenceDataCache referenceDataCache;
 
     /**
      * Retrieves all genres
@@ -22,7 +22,7 @@ public class GenreService {
      * @return {@link List<Genre>}
      */
     public List<Genre> getAll() {
-        return genreStorage.getAll();
+        return referenceDataCache.getGenres().getAll();
     }
 
 
@@ -33,7 +33,7 @@ public class GenreService {
      * @return {@link Genre}
      */
     public Genre getById(Long mpaId) {
-        return genreStorage.getById(mpaId).orElseThrow(() ->
+        return referenceDataCache.getGenres().getById(mpaId).orElseThrow(() ->
                 new NotFoundException("Genre with ID %d not found".formatted(mpaId)));
     }
 }
@@ -24,6 +24,8 @@ public class LikeService {
     private final UserStorage userStorage;
     private final FilmStorage filmStorage;
     private final EventStorage eventStorage;
+    private final ParallelLookups parallelLookups;
+    private final ResourceVersions resourceVersions;
 
     /**
      * Adds a like from a user to a film.
@@ -33,11 +35,12 @@ public class LikeService {
      * @throws NotFoundException
      */
     public void addLike(long filmId, long userId) {
-        filmStorage.getById(filmId).orElseThrow(() -> new NotFoundException("Film not found"));
-        userStorage.getById(userId).orElseThrow(() -> new NotFoundException("User not found"));
+        requireFilmAndUser(filmId, userId);
 
-        if (!likeStorage.getFilmLikes(filmId).contains(userId)) {
-            likeStorage.addLike(userId, filmId);
+        if (likeStorage.addLike(userId, filmId)) {
+            resourceVersions.filmChanged(filmId);
+        } else {
+            log.debug("User with ID {} has already liked the film with ID {}", userId, filmId);
         }
 
         addNewEvent(userId, filmId, EventType.LIKE, OperationType.ADD);
@@ -52,19 +55,26 @@ public class LikeService {
      * @throws NotFoundException
      */
     public void removeLike(long filmId, long userId) {
-        filmStorage.getById(filmId).orElseThrow(() -> new NotFoundException("Film not found"));
-        userStorage.getById(userId).orElseThrow(() -> new NotFoundException("User not found"));
+        requireFilmAndUser(filmId, userId);
 
-        if (!likeStorage.getFilmLikes(filmId).contains(userId)) {
+        if (!likeStorage.removeLike(userId, filmId)) {
             throw new LikeNotExistException("User did not like this film");
         }
+        resourceVersions.filmChanged(filmId);
 
         addNewEvent(userId, filmId, EventType.LIKE, OperationType.REMOVE);
-        likeStorage.removeLike(userId, filmId);
         log.debug("User with ID {} removed the like from the film with ID {}", userId, filmId);
 
     }
 
+    private void requireFilmAndUser(long filmId, long userId) {
+        try (LookupScope scope = parallelLookups.open()) {
+            scope.fork(() -> filmStorage.getById(filmId).orElseThrow(() -> new NotFoundException("Film not found")));
+            scope.fork(() -> userStorage.getById(userId).orElseThrow(() -> new NotFoundException("User not found")));
+            scope.join();
+        }
+    }
+
     private void addNewEvent(Long userId, Long filmId, EventType eventType, OperationType operationType) {
         Event event = Event.builder()
                 .userId(userId)
@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.service;
+
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * A group of lookups forked together and joined together, in the shape of StructuredTaskScope.ShutdownOnFailure:
+ * the first lookup to throw (typically a NotFoundException) cancels the others, and {@link #join()}
+ * rethrows that exception as is. Closing the scope cancels whatever is still running.
+ * Cancelling does not interrupt: a lookup already running finishes its JDBC call and its result is dropped.
+ * Without an executor every lookup runs right away on the caller thread.
+ */
+public final class LookupScope implements AutoCloseable {
+    private final ExecutorService executor;
+    private final Queue<Future<?>> forked = new ConcurrentLinkedQueue<>();
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+    LookupScope(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Starts the lookup, returning a handle to its result that may be read after {@link #join()}
+     */
+    public <T> Supplier<T> fork(Supplier<T> lookup) {
+        if (executor == null) {
+            T result = lookup.get();
+            return () -> result;
+        }
+        Future<T> future = executor.submit(() -> {
+            try {
+                return lookup.get();
+            } catch (RuntimeException e) {
+                if (failure.compareAndSet(null, e)) {
+                    cancelAll();
+                }
+                throw e;
+            }
+        });
+        forked.add(future);
+        return future::resultNow;
+    }
+
+    /**
+     * Waits for all forked lookups
+     *
+     * @throws RuntimeException the first exception thrown by a lookup
+     */
+    public void join() {
+        for (Future<?> future : forked) {
+            try {
+                future.get();
+            } catch (CancellationException | ExecutionException e) {
+                // the failure that caused it is rethrown below
+                if (e instanceof ExecutionException && e.getCause() instanceof Error error) {
+                    throw error;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelAll();
+                throw new IllegalStateException("Interrupted while waiting for lookups", e);
+            }
+        }
+        RuntimeException first = failure.get();
+        if (first != null) {
+            throw first;
+        }
+    }
+
+    @Override
+    public void close() {
+        cancelAll();
+    }
+
+    private void cancelAll() {
+        forked.forEach(future -> future.cancel(false));
+    }
+}
@@ -6,7 +6,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.MPA;
-import ru.yandex.practicum.filmorate.storage.MPAStorage;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceDataCache;
 
 import java.util.List;
 
@@ -14,7 +14,7 @@ import java.util.List;
 @Slf4j
 @RequiredArgsConstructor
 public class MPAService {
-    private final MPAStorage mpaStorage;
+    private final ReferenceDataCache referenceDataCache;
 
     /**
      * Retrieves all MPAs
@@ -22,7 +22,7 @@ public class MPAService {
      * @return {@link List<MPA>}
      */
     public List<MPA> getAll() {
-        return mpaStorage.getAll();
+        return referenceDataCache.getMpa().getAll();
     }
 
     /**
@@ -32,7 +32,7 @@ public class MPAService {
      * @return {@link MPA}
      */
     public MPA getById(Long mpaId) {
-        return mpaStorage.getById(mpaId).orElseThrow(() ->
+        return referenceDataCache.getMpa().getById(mpaId).orElseThrow(() ->
                 new NotFoundException("MPA with ID %d not found".formatted(mpaId)));
     }
 }
@@ -0,0 +1,35 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Opens {@link LookupScope}s for service methods that need several independent storage lookups.
+ * Each forked lookup runs on its own virtual thread. Inside a transaction, or with
+ * filmorate.lookups.parallel=false, lookups run one after another on the caller thread, because other
+ * threads would not see the caller's uncommitted changes.
+ */
+@Component
+public class ParallelLookups {
+    private final boolean parallel;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ParallelLookups(@Value("${filmorate.lookups.parallel:true}") boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public LookupScope open() {
+        boolean concurrent = parallel && !TransactionSynchronizationManager.isActualTransactionActive();
+        return new LookupScope(concurrent ? executor : null);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,162 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.graph.LikeGraph;
+import ru.yandex.practicum.filmorate.storage.graph.SortedLongArrays;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collaborative filtering over {@link LikeGraph}.
+ * Similar users are looked up only among those who liked at least one of the user's films,
+ * films they liked and the user did not are recommended, most liked first.
+ * Candidate sets are cached per user along with the like versions they were computed from: the user's,
+ * those of the user's films, which change whenever a co-liker appears or leaves, and the chosen neighbours'.
+ * An entry is checked against them when it is read, so a like never walks the cache.
+ * Scoring runs outside the map, and a result is installed only if nothing it read changed meanwhile.
+ */
+@Component
+public class RecommendationEngine {
+    private final LikeGraph likeGraph;
+    private final int neighbours;
+    private final Map<Long, Recommendation> cache = new ConcurrentHashMap<>();
+
+    public RecommendationEngine(LikeGraph likeGraph,
+                                @Value("${filmorate.recommendations.neighbours:1}") int neighbours) {
+        this.likeGraph = likeGraph;
+        this.neighbours = neighbours;
+        likeGraph.addListener(this::onLikeChanged);
+    }
+
+    /**
+     * Ids of films recommended to the user, most liked first
+     *
+     * @param userId
+     * @return {@link List} of film ids
+     */
+    public List<Long> recommend(long userId) {
+        Recommendation recommendation = cache.get(userId);
+        if (recommendation == null || !recommendation.isFresh(likeGraph)) {
+            Recommendation computed = compute(userId);
+            if (computed.isFresh(likeGraph)) {
+                if (recommendation == null) {
+                    cache.putIfAbsent(userId, computed);
+                } else {
+                    cache.replace(userId, recommendation, computed);
+                }
+            }
+            recommendation = computed;
+        }
+
+        List<Long> filmIds = new ArrayList<>(recommendation.filmIds().length);
+        for (long filmId : recommendation.filmIds()) {
+            filmIds.add(filmId);
+        }
+        filmIds.sort(Comparator.comparingInt((Long filmId) -> likeGraph.countLikes(filmId)).reversed()
+                .thenComparing(Comparator.naturalOrder()));
+        return filmIds;
+    }
+
+    private Recommendation compute(long userId) {
+        long userVersion = likeGraph.getVersion(userId);
+        long[] userFilms = likeGraph.getFilms(userId);
+        long[] filmVersions = new long[userFilms.length];
+        for (int i = 0; i < userFilms.length; i++) {
+            filmVersions[i] = likeGraph.getFilmVersion(userFilms[i]);
+        }
+
+        long[] similar = mostSimilar(userId, userFilms);
+
+        long[] versions = new long[similar.length];
+        long[] candidates = new long[0];
+        for (int i = 0; i < similar.length; i++) {
+            versions[i] = likeGraph.getVersion(similar[i]);
+            long[] unseen = SortedLongArrays.difference(likeGraph.getFilms(similar[i]), userFilms);
+            long[] merged = Arrays.copyOf(candidates, candidates.length + unseen.length);
+            System.arraycopy(unseen, 0, merged, candidates.length, unseen.length);
+            candidates = SortedLongArrays.of(merged, merged.length);
+        }
+        return new Recommendation(candidates, userId, userVersion, userFilms, filmVersions, similar, versions);
+    }
+
+    /**
+     * Users sharing the most liked films with the user, ties broken by the lower id. Co-likers of all the
+     * user's films are gathered into one array and counted as runs after sorting, so no counter is boxed.
+     */
+    private long[] mostSimilar(long userId, long[] userFilms) {
+        long[][] coLikers = new long[userFilms.length][];
+        int total = 0;
+        for (int i = 0; i < userFilms.length; i++) {
+            coLikers[i] = likeGraph.getUsers(userFilms[i]);
+            total += coLikers[i].length;
+        }
+        long[] all = new long[total];
+        int size = 0;
+        for (long[] users : coLikers) {
+            System.arraycopy(users, 0, all, size, users.length);
+            size += users.length;
+        }
+        Arrays.sort(all);
+
+        long[] bestIds = new long[neighbours];
+        int[] bestCounts = new int[neighbours];
+        int found = 0;
+        int start = 0;
+        while (start < total) {
+            long otherId = all[start];
+            int end = start;
+            while (end < total && all[end] == otherId) {
+                end++;
+            }
+            int overlap = end - start;
+            start = end;
+            if (otherId == userId) {
+                continue;
+            }
+            // runs come in ascending id order, so an equal overlap never displaces an earlier id
+            int at = found;
+            while (at > 0 && bestCounts[at - 1] < overlap) {
+                at--;
+            }
+            if (at < neighbours) {
+                int kept = Math.min(found, neighbours - 1);
+                System.arraycopy(bestIds, at, bestIds, at + 1, kept - at);
+                System.arraycopy(bestCounts, at, bestCounts, at + 1, kept - at);
+                bestIds[at] = otherId;
+                bestCounts[at] = overlap;
+                found = kept + 1;
+            }
+        }
+        return Arrays.copyOf(bestIds, found);
+    }
+
+    /**
+     * Drops only the entry of the user who changed a like, which also frees the entries of deleted users.
+     * Entries of other users are checked when read.
+     */
+    private void onLikeChanged(long userId, long filmId) {
+        cache.remove(userId);
+    }
+
+    private record Recommendation(long[] filmIds, long userId, long userVersion, long[] userFilms,
+                                  long[] filmVersions, long[] neighbours, long[] versions) {
+        boolean isFresh(LikeGraph likeGraph) {
+            if (likeGraph.getVersion(userId) != userVersion) {
+                return false;
+            }
+            for (int i = 0; i < userFilms.length; i++) {
+                if (likeGraph.getFilmVersion(userFilms[i]) != filmVersions[i]) {
+                    return false;
+                }
+            }
+            for (int i = 0; i < neighbours.length; i++) {
+                if (likeGraph.getVersion(neighbours[i]) != versions[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
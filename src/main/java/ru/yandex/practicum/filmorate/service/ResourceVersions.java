@@ -0,0 +1,72 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Version counters behind the ETags of the cached GET endpoints. Services bump them once a change is written
+ * and the caches in front of the storages are invalidated, so a tag never outlives the body it was sent with.
+ * Films are versioned in a fixed number of slots indexed by id: a change to one film also changes the tags
+ * of the films sharing its slot, which costs them a full response but never gives a stale one.
+ * Tags start with a random epoch, so tags from before a restart never match.
+ */
+@Component
+public class ResourceVersions {
+    private static final int FILM_SLOTS = 1 << 14;
+
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final AtomicLongArray filmSlots = new AtomicLongArray(FILM_SLOTS);
+    private final AtomicLong allFilms = new AtomicLong();
+    private final AtomicLong popular = new AtomicLong();
+    private final AtomicLong directors = new AtomicLong();
+
+    public String film(long filmId) {
+        return tag(allFilms.get() + "." + filmSlots.get(slot(filmId)));
+    }
+
+    public String popular() {
+        return tag(Long.toString(popular.get()));
+    }
+
+    public String directors() {
+        return tag(Long.toString(directors.get()));
+    }
+
+    /**
+     * Genres and MPA ratings never change while the application runs
+     */
+    public String referenceData() {
+        return tag("0");
+    }
+
+    /**
+     * A film was created, updated, liked, unliked or deleted
+     */
+    public void filmChanged(long filmId) {
+        filmSlots.incrementAndGet(slot(filmId));
+        popular.incrementAndGet();
+    }
+
+    /**
+     * Any number of films changed, e.g. a director they embed or the likes of a deleted user
+     */
+    public void filmsChanged() {
+        allFilms.incrementAndGet();
+        popular.incrementAndGet();
+    }
+
+    public void directorsChanged() {
+        directors.incrementAndGet();
+    }
+
+    private String tag(String version) {
+        return "\"" + epoch + "-" + version + "\"";
+    }
+
+    private static int slot(long filmId) {
+        return (int) (filmId & (FILM_SLOTS - 1));
+    }
+}
@@ -2,13 +2,16 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Event;
 import ru.yandex.practicum.filmorate.model.EventType;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.OperationType;
 import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.model.dto.RequestUpdateReviewDto;
 import ru.yandex.practicum.filmorate.storage.EventStorage;
 import ru.yandex.practicum.filmorate.storage.ReviewStorage;
@@ -18,6 +21,7 @@ import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.List;
+import java.util.function.Supplier;
 
 @Service
 @Slf4j
@@ -27,6 +31,7 @@ public class ReviewService {
     private final UserStorage userStorage;
     private final FilmStorage filmStorage;
     private final EventStorage eventStorage;
+    private final ParallelLookups parallelLookups;
 
     /**
      * Create a review
@@ -35,15 +40,11 @@ public class ReviewService {
      * @return {@link Review}
      */
     public Review createReview(Review review) {
-        userStorage.getById(review.getUserId())
-                .orElseThrow(() -> new NotFoundException(
-                        "User with id = %d not found".formatted(review.getUserId()))
-                );
-
-        filmStorage.getById(review.getFilmId())
-                .orElseThrow(() -> new NotFoundException(
-                        "Film with id = %d not found".formatted(review.getFilmId())
-                ));
+        try (LookupScope scope = parallelLookups.open()) {
+            scope.fork(() -> requireUser(review.getUserId()));
+            scope.fork(() -> requireFilm(review.getFilmId()));
+            scope.join();
+        }
 
         Long id = reviewStorage.createReview(review);
 
@@ -61,17 +62,17 @@ public class ReviewService {
      * @return {@link Review}
      */
     public Review updateReview(RequestUpdateReviewDto reviewDto) {
-        Review review = reviewStorage.findById(reviewDto.getReviewId())
-                .orElseThrow(() -> new NotFoundException(
-                        "Review with id = %d not found".formatted(reviewDto.getReviewId())
-                ));
-
-        if (reviewDto.getUserId() != null && userStorage.getById(reviewDto.getUserId()).isEmpty()) {
-            throw new NotFoundException("User with id = %d not found".formatted(reviewDto.getUserId()));
-        }
-
-        if (reviewDto.getFilmId() != null && filmStorage.getById(reviewDto.getFilmId()).isEmpty()) {
-            throw new NotFoundException("Film with id = %d not found".formatted(reviewDto.getFilmId()));
+        Review review;
+        try (LookupScope scope = parallelLookups.open()) {
+            Supplier<Review> found = scope.fork(() -> requireReview(reviewDto.getReviewId()));
+            if (reviewDto.getUserId() != null) {
+                scope.fork(() -> requireUser(reviewDto.getUserId()));
+            }
+            if (reviewDto.getFilmId() != null) {
+                scope.fork(() -> requireFilm(reviewDto.getFilmId()));
+            }
+            scope.join();
+            review = found.get();
         }
 
         if (reviewDto.getContent() != null) {
@@ -139,15 +140,7 @@ public class ReviewService {
      * @param isLike
      */
     public void addLike(Long reviewId, Long userId, boolean isLike) {
-        reviewStorage.findById(reviewId)
-                .orElseThrow(() -> new NotFoundException(
-                        "Review with id = %d not found".formatted(reviewId)
-                ));
-
-        userStorage.getById(userId)
-                .orElseThrow(() -> new NotFoundException(
-                        "User with id = %d not found".formatted(userId)
-                ));
+        requireReviewAndUser(reviewId, userId);
 
         reviewStorage.addLike(reviewId, userId, isLike);
     }
@@ -159,15 +152,41 @@ public class ReviewService {
      * @param userId
      */
     public void deleteLike(Long reviewId, Long userId) {
-        if (reviewStorage.findById(reviewId).isEmpty()) {
-            throw new NotFoundException("Review with id = %d not found".formatted(reviewId));
-        }
+        requireReviewAndUser(reviewId, userId);
+
+        reviewStorage.deleteLike(reviewId, userId);
+    }
 
-        if (userStorage.getById(userId).isEmpty()) {
-            throw new NotFoundException("User with id = %d not found".formatted(userId));
+    /**
+     * Rebuilds the stored useful rating of reviews from their likes and dislikes
+     */
+    @Scheduled(cron = "${filmorate.reviews.useful-reconcile-cron:0 0 4 * * *}")
+    public void reconcileUseful() {
+        int updated = reviewStorage.rebuildUseful();
+        log.info("Useful rating reconciled for {} reviews", updated);
+    }
+
+    private void requireReviewAndUser(Long reviewId, Long userId) {
+        try (LookupScope scope = parallelLookups.open()) {
+            scope.fork(() -> requireReview(reviewId));
+            scope.fork(() -> requireUser(userId));
+            scope.join();
         }
+    }
 
-        reviewStorage.deleteLike(reviewId, userId);
+    private Review requireReview(Long reviewId) {
+        return reviewStorage.findById(reviewId)
+                .orElseThrow(() -> new NotFoundException("Review with id = %d not found".formatted(reviewId)));
+    }
+
+    private User requireUser(Long userId) {
+        return userStorage.getById(userId)
+                .orElseThrow(() -> new NotFoundException("User with id = %d not found".formatted(userId)));
+    }
+
+    private Film requireFilm(Long filmId) {
+        return filmStorage.getById(filmId)
+                .orElseThrow(() -> new NotFoundException("Film with id = %d not found".formatted(filmId)));
     }
 
     private void addNewEvent(Long userId, Long reviewId, EventType eventType, OperationType operationType) {
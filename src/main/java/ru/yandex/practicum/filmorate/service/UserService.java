@@ -9,13 +9,13 @@ import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.*;
 import ru.yandex.practicum.filmorate.storage.EventStorage;
 import ru.yandex.practicum.filmorate.storage.GenreStorage;
-import ru.yandex.practicum.filmorate.storage.LikeStorage;
-import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.*;
+import java.util.function.Consumer;
 
 @Service
 @Slf4j
@@ -23,9 +23,11 @@ import java.util.*;
 public class UserService {
     private final UserStorage userStorage;
     private final EventStorage eventStorage;
-    private final FilmDbStorage filmStorage;
-    private final LikeStorage likeStorage;
+    private final FilmStorage filmStorage;
+    private final RecommendationEngine recommendationEngine;
     private final GenreStorage genreStorage;
+    private final ResourceVersions resourceVersions;
+    private static final int DEFAULT_FEED_LIMIT = 100;
 
     /**
      * Retrieves all users.
@@ -36,6 +38,15 @@ public class UserService {
         return userStorage.getAll();
     }
 
+    /**
+     * Passes every user to the action in id order, reading them as they go.
+     *
+     * @param action
+     */
+    public void exportAll(Consumer<User> action) {
+        userStorage.forEach(action);
+    }
+
     /**
      * Creates a new user.
      *
@@ -51,7 +62,7 @@ public class UserService {
         }
 
         log.trace("Generating and setting user ID.");
-        user.setId(generateId());
+        user.setId(userStorage.nextId());
 
         log.trace("Attempting to create user in storage.");
         User createdUser = userStorage.create(user);
@@ -91,13 +102,7 @@ public class UserService {
      */
     public Map<String, String> addFriend(Long userId, Long friendId) {
         log.trace("Validating user IDs.");
-        Optional<User> user = userStorage.getById(userId);
-        Optional<User> friend = userStorage.getById(friendId);
-
-        if (user.isEmpty() || friend.isEmpty()) {
-            log.error("One or both user IDs are invalid.");
-            throw new NotFoundException("One or both users not found!");
-        }
+        User friend = requireBoth(userId, friendId);
 
         log.trace("Attempting to add friendship.");
         try {
@@ -116,7 +121,7 @@ public class UserService {
             log.error("Failed to add friendship.", e);
             throw new ValidationException("Failed to add friendship: " + e.getMessage());
         }
-        return Map.of("friend", "You added %s as a friend".formatted(friend.get().getName()));
+        return Map.of("friend", "You added %s as a friend".formatted(friend.getName()));
     }
 
     /**
@@ -130,13 +135,7 @@ public class UserService {
      */
     public Map<String, String> removeFriend(Long userId, Long friendId) {
         log.trace("Validating user IDs.");
-        Optional<User> user = userStorage.getById(userId);
-        Optional<User> friend = userStorage.getById(friendId);
-
-        if (user.isEmpty() || friend.isEmpty()) {
-            log.error("One or both user IDs are invalid.");
-            throw new NotFoundException("One or both users not found!");
-        }
+        User friend = requireBoth(userId, friendId);
 
         log.trace("Attempting to remove friendship.");
         try {
@@ -151,7 +150,7 @@ public class UserService {
                     .entityId(friendId)
                     .build());
 
-            return Map.of("friends", "You removed %s from friends".formatted(friend.get().getName()));
+            return Map.of("friends", "You removed %s from friends".formatted(friend.getName()));
         } catch (DataAccessException e) {
             log.error("Failed to remove friendship.", e);
             throw new ValidationException("Failed to remove friendship: " + e.getMessage());
@@ -167,12 +166,12 @@ public class UserService {
      * @throws NotFoundException
      */
     public List<User> getCommonFriend(Long userId, Long otherId) {
-        if (!usersIdsValidation(userId, otherId)) {
-            log.error("One or both user IDs are invalid.");
-            throw new NotFoundException("One or both users not found!");
+        List<User> commonFriends = userStorage.getCommonFriends(userId, otherId);
+        // friendships reference both of their users, so only an empty result needs the users looked up
+        if (commonFriends.isEmpty()) {
+            requireBoth(userId, otherId);
         }
-
-        return userStorage.getCommonFriends(userId, otherId);
+        return commonFriends;
     }
 
     /**
@@ -197,46 +196,47 @@ public class UserService {
     }
 
     /**
-     * Retrieves a list of events for a specific user.
+     * Retrieves the feed of a user, either the whole history or one page of it.
      *
      * @param userId the ID of the user.
+     * @param after  the ID of the last event already received, null to start from the beginning.
+     * @param limit  the maximum number of events to return; without both parameters the whole history is returned.
      * @return a list of events associated with the user.
+     * @throws ValidationException if the limit is not positive or after is not an event of the user.
      */
-    public List<Event> getEventsByUserId(Long userId) {
+    public List<Event> getEventsByUserId(Long userId, Long after, Integer limit) {
         log.trace("Checking existence of user with ID {}", userId);
         if (userStorage.getById(userId).isEmpty()) {
             log.warn("User with ID {} does not exist", userId);
             throw new NotFoundException("User with ID %s does not exist".formatted(userId));
         }
-        log.trace("Retrieves a list of events for a user {}", userId);
-        return eventStorage.getEventsByUserId(userId);
-    }
-
-    /**
-     * Validates both user IDs exist.
-     *
-     * @param userId1
-     * @param userId2
-     * @return boolean
-     */
-    private boolean usersIdsValidation(Long userId1, Long userId2) {
-        Optional<User> user1 = userStorage.getById(userId1);
-        Optional<User> user2 = userStorage.getById(userId2);
-
-        return user1.isPresent() && user2.isPresent();
+        if (limit == null && after == null) {
+            log.trace("Retrieves a list of events for a user {}", userId);
+            return eventStorage.getEventsByUserId(userId);
+        }
+        if (limit != null && limit <= 0) {
+            log.warn("Invalid feed limit {}", limit);
+            throw new ValidationException("Limit must be positive");
+        }
+        log.trace("Retrieves a page of events for a user {} after {}", userId, after);
+        return eventStorage.getEventsByUserId(userId, after, limit == null ? DEFAULT_FEED_LIMIT : limit);
     }
 
     /**
-     * Generates new unique ID for a user.
+     * Looks up both users in one query.
      *
-     * @return Long
+     * @param userId
+     * @param otherId
+     * @return the user with otherId
+     * @throws NotFoundException if either user does not exist
      */
-    private Long generateId() {
-        Long currentId = userStorage.getAll().stream()
-                .mapToLong(User::getId)
-                .max()
-                .orElse(0);
-        return ++currentId;
+    private User requireBoth(Long userId, Long otherId) {
+        List<User> users = userStorage.getByIds(List.of(userId, otherId));
+        if (users.size() < 2) {
+            log.error("User ID {} or {} is invalid.", userId, otherId);
+            throw new NotFoundException("One or both users not found!");
+        }
+        return users.get(1);
     }
 
     /**
@@ -253,6 +253,8 @@ public class UserService {
         }
         log.trace("Deleting user ID {}", userId);
         userStorage.deleteById(userId);
+        // the user's likes are gone with them
+        resourceVersions.filmsChanged();
         log.info("Successfully deleted user with ID {}", userId);
     }
 
@@ -281,68 +283,16 @@ public class UserService {
             throw new NotFoundException("User with ID " + userId + " not found");
         }
 
-        List<Film> movies = filmStorage.getAll();
-
-        // Add likes and update likeCount
-        Map<Long, Set<Long>> filmsLikes = likeStorage.getAllFilmLikes();
-        for (Film movie : movies) {
-            Set<Long> likes = filmsLikes.getOrDefault(movie.getId(), new HashSet<>());
-            movie.setLikes(likes);
-            movie.setLikeCount(likes.size());
-        }
-
-        // Add genres
-        Map<Long, Set<Genre>> filmGenres = genreStorage.getAllFilmsGenres();
-        for (Film movie : movies) {
-            Set<Genre> genres = filmGenres.getOrDefault(movie.getId(), new HashSet<>());
+        List<Long> filmIds = recommendationEngine.recommend(userId);
+        List<Film> films = filmStorage.getByIds(filmIds);
 
-            List<Genre> sortedGenres = new ArrayList<>(genres);
+        Map<Long, Set<Genre>> filmGenres = genreStorage.getFilmsGenres(filmIds);
+        for (Film film : films) {
+            List<Genre> sortedGenres = new ArrayList<>(filmGenres.getOrDefault(film.getId(), Set.of()));
             sortedGenres.sort(Comparator.comparingLong(Genre::getId));
-
-            movie.setGenres(new LinkedHashSet<>(sortedGenres));
-        }
-
-        // Build a map of user IDs to their liked film IDs
-        Map<Long, Set<Long>> usersLikes = new HashMap<>();
-        for (Film film : movies) {
-            for (Long id : film.getLikes()) {
-                usersLikes.computeIfAbsent(id, k -> new HashSet<>()).add(film.getId());
-            }
+            film.setGenres(new LinkedHashSet<>(sortedGenres));
         }
-
-        if (!usersLikes.containsKey(userId)) {
-            return Collections.emptyList();
-        }
-
-        // Find the most similar user
-        Long mostSimilarUserId = null;
-        int maxOverlap = 0;
-
-        for (Long id : usersLikes.keySet()) {
-            if (id.equals(userId)) {
-                continue;
-            }
-
-            Set<Long> intersection = new HashSet<>(usersLikes.get(userId));
-            intersection.retainAll(usersLikes.get(id));
-            int overlap = intersection.size();
-
-            if (overlap > maxOverlap) {
-                mostSimilarUserId = id;
-                maxOverlap = overlap;
-            }
-        }
-
-        if (mostSimilarUserId == null) {
-            return Collections.emptyList();
-        }
-
-        final Long userWithGreatestMatch = mostSimilarUserId;
-        return movies.stream()
-                .filter(film -> usersLikes.get(userWithGreatestMatch).contains(film.getId())
-                        && !usersLikes.get(userId).contains(film.getId()))
-                .sorted(Comparator.comparingInt(Film::getLikeCount).reversed()) // Sort by likeCount
-                .toList();
+        return films;
     }
 
 }
@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Changes published by the storages. The in-memory indexes and caches subscribe with
+ * {@code @TransactionalEventListener(fallbackExecution = true)}, so they see a change only once its transaction
+ * commits, and at once when there is none. A rolled back write never reaches them.
+ */
+public final class ChangeEvents {
+
+    private ChangeEvents() {
+    }
+
+    /**
+     * Films created or updated, with their genres and release date
+     */
+    public record FilmsSaved(List<Film> films) {
+    }
+
+    public record FilmDeleted(long filmId) {
+    }
+
+    public record LikeChanged(long userId, long filmId, boolean added) {
+    }
+
+    /**
+     * A deleted user with the films they had liked, read before their likes were deleted with them
+     */
+    public record UserDeleted(long userId, List<Long> likedFilmIds) {
+    }
+
+    public record FriendshipChanged(long userId, long friendId, boolean added) {
+    }
+
+    public record DirectorSaved(long directorId, String name) {
+    }
+
+    public record DirectorDeleted(long directorId) {
+    }
+
+    /**
+     * The directors now linked to each film, replacing the previous ones
+     */
+    public record FilmDirectorsChanged(Map<Long, List<Long>> directorIdsByFilm) {
+    }
+}
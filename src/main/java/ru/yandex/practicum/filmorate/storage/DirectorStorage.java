@@ -2,11 +2,13 @@ package ru.yandex.practicum.filmorate.storage;
 
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.id.SequenceIdAllocator;
 import ru.yandex.practicum.filmorate.storage.mapper.DirectorRowMapper;
 
 import java.util.*;
@@ -16,6 +18,8 @@ import java.util.*;
 public class DirectorStorage {
     private final JdbcTemplate jdbc;
     private final DirectorRowMapper mapper;
+    private final SequenceIdAllocator idAllocator;
+    private final ApplicationEventPublisher events;
 
     public Optional<Director> getById(Long id) {
         try {
@@ -33,9 +37,14 @@ public class DirectorStorage {
         return jdbc.query(findAllDirectorsQuery, mapper);
     }
 
+    public long nextId() {
+        return idAllocator.nextId(SequenceIdAllocator.DIRECTOR_SEQUENCE);
+    }
+
     public Director create(Director director) {
         String insertDirectorQuery = "INSERT INTO directors (id, name) VALUES (?, ?)";
         jdbc.update(insertDirectorQuery, director.getId(), director.getName());
+        events.publishEvent(new ChangeEvents.DirectorSaved(director.getId(), director.getName()));
         return director;
     }
 
@@ -43,48 +52,43 @@ public class DirectorStorage {
         String updateDirectorQuery = "UPDATE directors SET name = ? WHERE id = ?";
         jdbc.update(updateDirectorQuery,
                 newDirector.getName(), newDirector.getId());
+        events.publishEvent(new ChangeEvents.DirectorSaved(newDirector.getId(), newDirector.getName()));
         return newDirector;
     }
 
     public void deleteById(Long id) {
         String deleteDirectorQuery = "DELETE FROM directors WHERE id = ?";
         jdbc.update(deleteDirectorQuery, id);
+        events.publishEvent(new ChangeEvents.DirectorDeleted(id));
     }
 
-    public Map<Long, Set<Director>> getAllFilmsDirectors() {
-        String getAllFilmsDirectorsQuery = "SELECT f.id AS film_id, d.id AS director_id, d.name AS director_name\n" +
-                "FROM films f\n" +
-                "LEFT JOIN film_directors fd ON fd.film_id = f.id \n" +
-                "LEFT JOIN directors d ON d.id = fd.director_id";
+    /**
+     * Directors of the given films only, one query per {@link SqlBatches#CHUNK_SIZE} films
+     *
+     * @param filmIds
+     * @return {@link Map} film id to its directors
+     */
+    public Map<Long, Set<Director>> getFilmsDirectors(Collection<Long> filmIds) {
         Map<Long, Set<Director>> filmDirectors = new HashMap<>();
 
-        jdbc.query(getAllFilmsDirectorsQuery, rs -> {
-            Long filmId = rs.getLong("film_id");
-            Long directorId = rs.getObject("director_id", Long.class);
-            String directorName = rs.getString("director_name");
-
-            filmDirectors.computeIfAbsent(filmId, k -> new HashSet<>());
-            if (directorId != null) {
-                filmDirectors.get(filmId).add(Director.builder()
-                        .id(directorId).name(directorName).build());
-            }
-        });
+        for (List<Long> chunk : SqlBatches.chunks(filmIds)) {
+            String sql = "SELECT fd.film_id, d.id AS director_id, d.name AS director_name " +
+                    "FROM film_directors fd " +
+                    "JOIN directors d ON d.id = fd.director_id " +
+                    "WHERE fd.film_id IN (" + SqlBatches.placeholders(chunk.size()) + ")";
+
+            jdbc.query(sql, rs -> {
+                filmDirectors.computeIfAbsent(rs.getLong("film_id"), k -> new HashSet<>())
+                        .add(Director.builder()
+                                .id(rs.getLong("director_id"))
+                                .name(rs.getString("director_name"))
+                                .build());
+            }, chunk.toArray());
+        }
 
         return filmDirectors;
     }
 
-    public Set<Director> getAllDirectorByFilmID(Long filmId) {
-        String findDirectorsByFilmId = "SELECT d.* \n" +
-                "FROM directors d \n" +
-                "WHERE d.ID IN (\n" +
-                "SELECT fd.director_id\n" +
-                "FROM film_directors fd \n" +
-                "WHERE fd.film_id = ?\n" +
-                ")";
-        return new HashSet<>(jdbc.query(findDirectorsByFilmId, mapper, filmId));
-
-    }
-
     public void saveDirectors(Film film) {
         Set<Director> filmDirectors = film.getDirectors();
 
@@ -104,11 +108,34 @@ public class DirectorStorage {
 
         sql.append(valuesJoiner);
         jdbc.update(sql.toString(), params.toArray());
+        events.publishEvent(new ChangeEvents.FilmDirectorsChanged(
+                Map.of(film.getId(), filmDirectors.stream().map(Director::getId).toList())));
+    }
+
+    /**
+     * Links films to their directors in one JDBC batch
+     *
+     * @param films
+     */
+    public void saveDirectors(List<Film> films) {
+        List<Object[]> rows = new ArrayList<>();
+        Map<Long, List<Long>> directorIds = new HashMap<>();
+        for (Film film : films) {
+            if (film.getDirectors() == null || film.getDirectors().isEmpty()) {
+                continue;
+            }
+            List<Long> ids = film.getDirectors().stream().map(Director::getId).distinct().toList();
+            ids.forEach(directorId -> rows.add(new Object[]{film.getId(), directorId}));
+            directorIds.put(film.getId(), ids);
+        }
+        jdbc.batchUpdate("INSERT INTO film_directors (film_id, director_id) VALUES (?, ?)", rows);
+        events.publishEvent(new ChangeEvents.FilmDirectorsChanged(directorIds));
     }
 
     public void updateDirectors(Film film) {
         String deleteSql = "DELETE FROM film_directors WHERE film_id = ?";
         jdbc.update(deleteSql, film.getId());
+        events.publishEvent(new ChangeEvents.FilmDirectorsChanged(Map.of(film.getId(), List.of())));
         saveDirectors(film);
     }
 
@@ -0,0 +1,227 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.model.Event;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes feed events off the request thread. Events are put on a bounded queue and a single
+ * background thread inserts them with JDBC batches of up to batch-size rows, waiting at most linger-ms
+ * for a batch to fill up. When the queue stays full for enqueue-timeout-ms the caller writes the event
+ * itself, and events raised inside a transaction are always written in that transaction.
+ * Every queued event gets the next sequence number, and the last one of each user is remembered until written.
+ * A feed reader calls {@link #awaitWritten(long)}, which waits only until the last queued event of that user
+ * is in the database, so a feed never misses events that were already accepted.
+ */
+@Component
+@Slf4j
+public class EventBatchWriter {
+    private static final String INSERT_EVENT_QUERY = """
+                INSERT INTO EVENTS (id, user_id, event_type, operation, timestamp, entity_id)
+                VALUES (?, ?,  ?,  ?, ?, ?)
+            """;
+    private static final long IDLE_POLL_MS = 500;
+
+    private final JdbcTemplate jdbc;
+    private final boolean async;
+    private final int batchSize;
+    private final long lingerMs;
+    private final long enqueueTimeoutMs;
+    private final BlockingQueue<Event> queue;
+    // a j.u.c. lock rather than a monitor, so request threads waiting in awaitWritten never pin a virtual thread
+    private final Lock progress = new ReentrantLock();
+    private final Condition progressed = progress.newCondition();
+    private final Map<Long, Long> lastQueuedByUser = new HashMap<>();
+    private long enqueued;
+    private long written;
+    private volatile boolean running;
+    private Thread worker;
+
+    public EventBatchWriter(JdbcTemplate jdbc,
+                            @Value("${filmorate.events.async:true}") boolean async,
+                            @Value("${filmorate.events.batch-size:100}") int batchSize,
+                            @Value("${filmorate.events.linger-ms:10}") long lingerMs,
+                            @Value("${filmorate.events.queue-capacity:10000}") int queueCapacity,
+                            @Value("${filmorate.events.enqueue-timeout-ms:100}") long enqueueTimeoutMs) {
+        this.jdbc = jdbc;
+        this.async = async;
+        this.batchSize = batchSize;
+        this.lingerMs = lingerMs;
+        this.enqueueTimeoutMs = enqueueTimeoutMs;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!async) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::run, "event-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Queues the event for the background writer, or inserts it right away when that is not possible
+     *
+     * @param event - event with its id already assigned
+     */
+    public void write(Event event) {
+        if (!running || TransactionSynchronizationManager.isActualTransactionActive()) {
+            insertOne(event);
+            return;
+        }
+        progress.lock();
+        try {
+            // the sequence number is taken under the same lock as the queue slot, so the queue is in sequence order
+            long timeout = TimeUnit.MILLISECONDS.toNanos(enqueueTimeoutMs);
+            boolean queued = queue.offer(event);
+            while (!queued && timeout > 0) {
+                timeout = progressed.awaitNanos(timeout);
+                queued = queue.offer(event);
+            }
+            if (queued) {
+                lastQueuedByUser.put(event.getUserId(), ++enqueued);
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            progress.unlock();
+        }
+        log.warn("Event queue is full, writing event for user {} synchronously", event.getUserId());
+        insertOne(event);
+    }
+
+    /**
+     * Blocks until every event of the user queued before the call is in the database
+     *
+     * @param userId
+     */
+    public void awaitWritten(long userId) {
+        progress.lock();
+        try {
+            Long target = lastQueuedByUser.get(userId);
+            while (target != null && written < target && running) {
+                progressed.await(lingerMs + IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            progress.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Event> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            insert(rest);
+            markWritten(rest.size());
+        }
+        log.info("Event writer stopped, {} events written on shutdown", rest.size());
+    }
+
+    private void run() {
+        List<Event> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Event first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (batch.size() < batchSize) {
+                    Event next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                if (batch.isEmpty()) {
+                    continue;
+                }
+            }
+            try {
+                insert(batch);
+            } catch (RuntimeException e) {
+                log.error("Failed to write {} events", batch.size(), e);
+            }
+            markWritten(batch.size());
+            batch.clear();
+        }
+    }
+
+    private void markWritten(int count) {
+        progress.lock();
+        try {
+            written += count;
+            lastQueuedByUser.values().removeIf(sequence -> sequence <= written);
+            progressed.signalAll();
+        } finally {
+            progress.unlock();
+        }
+    }
+
+    private void insert(List<Event> events) {
+        try {
+            jdbc.batchUpdate(INSERT_EVENT_QUERY, events, events.size(), (ps, event) -> {
+                ps.setLong(1, event.getEventId());
+                ps.setLong(2, event.getUserId());
+                ps.setString(3, event.getEventType().name());
+                ps.setString(4, event.getOperation().name());
+                ps.setLong(5, event.getTimestamp());
+                ps.setLong(6, event.getEntityId());
+            });
+        } catch (DataAccessException e) {
+            // one bad row (e.g. a user deleted meanwhile) must not drop the whole batch
+            for (Event event : events) {
+                try {
+                    insertOne(event);
+                } catch (DataAccessException rowException) {
+                    log.error("Failed to write event {}", event, rowException);
+                }
+            }
+        }
+    }
+
+    private void insertOne(Event event) {
+        jdbc.update(INSERT_EVENT_QUERY,
+                event.getEventId(),
+                event.getUserId(),
+                event.getEventType().name(),
+                event.getOperation().name(),
+                event.getTimestamp(),
+                event.getEntityId());
+    }
+}
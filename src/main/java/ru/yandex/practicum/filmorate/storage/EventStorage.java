@@ -3,7 +3,9 @@ package ru.yandex.practicum.filmorate.storage;
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.storage.id.SequenceIdAllocator;
 import ru.yandex.practicum.filmorate.storage.mapper.EventRowMapper;
 
 import java.util.List;
@@ -13,50 +15,74 @@ import java.util.List;
 public class EventStorage {
     private final JdbcTemplate jdbc;
     private final EventRowMapper eventRowMapper;
+    private final SequenceIdAllocator idAllocator;
+    private final EventBatchWriter eventWriter;
 
-    private static final String INSERT_EVENT_QUERY = """
-                INSERT INTO EVENTS (id, user_id, event_type, operation, timestamp, entity_id)
-                VALUES (?, ?,  ?,  ?, ?, ?)
+    private static final String GET_EVENTS_BY_USER_QUERY = """
+                SELECT id, timestamp, user_id, event_type, operation, entity_id
+                FROM events
+                WHERE user_id = ?
+                ORDER BY timestamp ASC, id ASC
             """;
 
-    private static final String GET_EVENTS_BY_USER_QUERY = """
+    private static final String GET_EVENT_TIMESTAMP_QUERY = """
+                SELECT timestamp
+                FROM events
+                WHERE id = ? AND user_id = ?
+            """;
+
+    private static final String GET_EVENTS_PAGE_QUERY = """
                 SELECT id, timestamp, user_id, event_type, operation, entity_id
                 FROM events
                 WHERE user_id = ?
-                ORDER BY timestamp ASC
+                  AND (timestamp > ? OR (timestamp = ? AND id > ?))
+                ORDER BY timestamp ASC, id ASC
+                LIMIT ?
             """;
 
-    private static final String GET_ALL_EVENTS_QUERY = """
+    private static final String GET_FIRST_EVENTS_PAGE_QUERY = """
                 SELECT id, timestamp, user_id, event_type, operation, entity_id
                 FROM events
-                ORDER BY timestamp ASC
+                WHERE user_id = ?
+                ORDER BY timestamp ASC, id ASC
+                LIMIT ?
             """;
 
+    /**
+     * Assigns the event id and hands the event to {@link EventBatchWriter}
+     *
+     * @param event
+     */
     public void addEvent(Event event) {
-        jdbc.update(
-                INSERT_EVENT_QUERY,
-                generateEventId(),
-                event.getUserId(),
-                event.getEventType().name(),
-                event.getOperation().name(),
-                event.getTimestamp(),
-                event.getEntityId()
-        );
+        event.setEventId(idAllocator.nextId(SequenceIdAllocator.EVENT_SEQUENCE));
+        eventWriter.write(event);
     }
 
     public List<Event> getEventsByUserId(Long userId) {
+        eventWriter.awaitWritten(userId);
         return jdbc.query(GET_EVENTS_BY_USER_QUERY, eventRowMapper, userId);
     }
 
-    public List<Event> getAllEvents() {
-        return jdbc.query(GET_ALL_EVENTS_QUERY, eventRowMapper);
-    }
-
-    private Long generateEventId() {
-        Long currentId = getAllEvents().stream()
-                .mapToLong(Event::getEventId)
-                .max()
-                .orElse(0);
-        return ++currentId;
+    /**
+     * One page of the user's feed in (timestamp, id) order, read from the idx_events_user_timestamp index
+     * so the cost does not depend on the length of the history
+     *
+     * @param userId
+     * @param afterEventId - id of the last event of the previous page, null for the first page
+     * @param limit        - page size
+     * @return {@link List<Event>}
+     * @throws ValidationException if afterEventId is not an event of the user
+     */
+    public List<Event> getEventsByUserId(Long userId, Long afterEventId, int limit) {
+        eventWriter.awaitWritten(userId);
+        if (afterEventId == null) {
+            return jdbc.query(GET_FIRST_EVENTS_PAGE_QUERY, eventRowMapper, userId, limit);
+        }
+        List<Long> cursor = jdbc.queryForList(GET_EVENT_TIMESTAMP_QUERY, Long.class, afterEventId, userId);
+        if (cursor.isEmpty()) {
+            throw new ValidationException("Event %d is not in the feed of user %d".formatted(afterEventId, userId));
+        }
+        long timestamp = cursor.getFirst();
+        return jdbc.query(GET_EVENTS_PAGE_QUERY, eventRowMapper, userId, timestamp, timestamp, afterEventId, limit);
     }
-}
\ No newline at end of file
+}
@@ -55,44 +55,53 @@ public class GenreStorage {
         jdbc.update(sql.toString(), params.toArray());
     }
 
+    /**
+     * Links films to their genres in one JDBC batch
+     *
+     * @param films
+     */
+    public void saveGenres(List<Film> films) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Film film : films) {
+            if (film.getGenres() != null) {
+                film.getGenres().stream()
+                        .map(Genre::getId)
+                        .distinct()
+                        .forEach(genreId -> rows.add(new Object[]{film.getId(), genreId}));
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", rows);
+    }
+
     public void updateGenres(Film film) {
         String deleteSql = "DELETE FROM film_genres WHERE film_id = ?";
         jdbc.update(deleteSql, film.getId());
         saveGenres(film);
     }
 
-    public Set<Genre> getFilmGenres(Long filmId) {
-        String findGenresByFilmId = "SELECT g.* \n" +
-                "FROM GENRES g \n" +
-                "WHERE g.ID IN (\n" +
-                "SELECT fg.genre_id\n" +
-                "FROM FILM_GENRES fg \n" +
-                "WHERE fg.film_id = ?\n" +
-                ")";
-        return new HashSet<>(jdbc.query(findGenresByFilmId, mapper, filmId));
-    }
-
-    public Map<Long, Set<Genre>> getAllFilmsGenres() {
-        String sql = "SELECT f.ID AS film_id, g.ID AS genre_id, g.NAME AS genre_name " +
-                "FROM FILMS f " +
-                "LEFT JOIN FILM_GENRES fg ON fg.FILM_ID = f.ID " +
-                "LEFT JOIN GENRES g ON g.ID = fg.GENRE_ID " +
-                "ORDER BY g.ID ASC";
+    /**
+     * Genres of the given films only, one query per {@link SqlBatches#CHUNK_SIZE} films
+     *
+     * @param filmIds
+     * @return {@link Map} film id to its genres
+     */
+    public Map<Long, Set<Genre>> getFilmsGenres(Collection<Long> filmIds) {
         Map<Long, Set<Genre>> filmGenres = new HashMap<>();
 
-        jdbc.query(sql, rs -> {
-            Long filmId = rs.getLong("film_id");
-            Genre genre = Genre.builder()
-                    .id(rs.getLong("genre_id"))
-                    .name(rs.getString("genre_name"))
-                    .build();
-            if (!rs.wasNull()) {
-                filmGenres.computeIfAbsent(filmId, k -> new HashSet<>()).add(genre);
-                log.debug("Film ID  {} set genre {}", filmId, genre.getId());
-            } else {
-                log.debug("Film ID {} has no genres.", filmId);
-            }
-        });
+        for (List<Long> chunk : SqlBatches.chunks(filmIds)) {
+            String sql = "SELECT fg.film_id, g.id AS genre_id, g.name AS genre_name " +
+                    "FROM film_genres fg " +
+                    "JOIN genres g ON g.id = fg.genre_id " +
+                    "WHERE fg.film_id IN (" + SqlBatches.placeholders(chunk.size()) + ")";
+
+            jdbc.query(sql, rs -> {
+                filmGenres.computeIfAbsent(rs.getLong("film_id"), k -> new HashSet<>())
+                        .add(Genre.builder()
+                                .id(rs.getLong("genre_id"))
+                                .name(rs.getString("genre_name"))
+                                .build());
+            }, chunk.toArray());
+        }
 
         return filmGenres;
     }
@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Reads a whole table in pages of {@link #PAGE_SIZE} rows in id order, each page starting after the last id
+ * of the previous one. Every page is a query of its own, so an export holds a pooled connection only while
+ * a page is read, not while a slow client takes the response.
+ */
+public final class KeysetPages {
+    public static final int PAGE_SIZE = 500;
+
+    private KeysetPages() {
+    }
+
+    /**
+     * Reads at most limit rows with ids greater than afterId, in id order
+     */
+    @FunctionalInterface
+    public interface PageReader<T> {
+        List<T> read(long afterId, int limit);
+    }
+
+    public static <T> void forEach(PageReader<T> reader, ToLongFunction<T> idExtractor, Consumer<T> action) {
+        long afterId = Long.MIN_VALUE;
+        List<T> page;
+        do {
+            page = reader.read(afterId, PAGE_SIZE);
+            page.forEach(action);
+            if (!page.isEmpty()) {
+                afterId = idExtractor.applyAsLong(page.getLast());
+            }
+        } while (page.size() == PAGE_SIZE);
+    }
+}
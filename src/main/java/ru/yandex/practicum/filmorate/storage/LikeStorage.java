@@ -1,12 +1,13 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.storage.film.LikeCounter;
 
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
 
 
@@ -14,43 +15,53 @@ import java.util.Set;
 @RequiredArgsConstructor
 public class LikeStorage {
     private final JdbcTemplate jdbc;
+    private final ApplicationEventPublisher events;
 
-    public void addLike(Long userId, Long filmId) {
-        String addLikeQuery = "INSERT INTO film_likes (user_id, film_id) VALUES (?, ?)";
-        jdbc.update(addLikeQuery, userId, filmId);
+    /**
+     * Adds the like unless it is already there, like_count follows through {@link LikeCounter}
+     *
+     * @param userId
+     * @param filmId
+     * @return true if the like was added, false if the user had already liked the film
+     */
+    public boolean addLike(Long userId, Long filmId) {
+        String addLikeQuery = """
+                INSERT INTO film_likes (user_id, film_id)
+                SELECT ?, ?
+                WHERE NOT EXISTS (SELECT 1 FROM film_likes WHERE user_id = ? AND film_id = ?)
+                """;
+        try {
+            if (jdbc.update(addLikeQuery, userId, filmId, userId, filmId) == 0) {
+                return false;
+            }
+        } catch (DuplicateKeyException e) {
+            // a concurrent request inserted the same like first
+            return false;
+        }
 
-        String incrementLikeCount = "UPDATE films SET like_count = like_count + 1 WHERE id = ?";
-        jdbc.update(incrementLikeCount, filmId);
+        events.publishEvent(new ChangeEvents.LikeChanged(userId, filmId, true));
+        return true;
     }
 
-    public void removeLike(Long userId, Long filmId) {
+    /**
+     * Removes the like if it exists, like_count follows through {@link LikeCounter}
+     *
+     * @param userId
+     * @param filmId
+     * @return true if the like was removed, false if there was none
+     */
+    public boolean removeLike(Long userId, Long filmId) {
         String deleteLikeQuery = "DELETE FROM film_likes WHERE user_id = ? AND film_id = ?";
-        jdbc.update(deleteLikeQuery, userId, filmId);
+        if (jdbc.update(deleteLikeQuery, userId, filmId) == 0) {
+            return false;
+        }
 
-        String decrementLikeCount = "UPDATE films SET like_count = like_count - 1 WHERE id = ?";
-        jdbc.update(decrementLikeCount, filmId);
+        events.publishEvent(new ChangeEvents.LikeChanged(userId, filmId, false));
+        return true;
     }
 
     public Set<Long> getFilmLikes(Long filmId) {
         String getLikesQuery = "SELECT user_id FROM film_likes WHERE film_id = ?";
         return new HashSet<>(jdbc.query(getLikesQuery, (rs, rowNum) -> rs.getLong("user_id"), filmId));
     }
-
-    public Map<Long, Set<Long>> getAllFilmLikes() {
-        String sql = """
-                SELECT f.id AS film_id, fl.user_id AS user_id
-                FROM films AS f
-                LEFT JOIN film_likes AS fl ON fl.film_id = f.id;
-                """;
-        Map<Long, Set<Long>> filmsLikes = new HashMap<>();
-
-        jdbc.query(sql, rm -> {
-            Long filmId = rm.getLong("film_id");
-            Long userId = rm.getLong("user_id");
-
-            filmsLikes.computeIfAbsent(filmId, k -> new HashSet<>()).add(userId);
-        });
-
-        return filmsLikes;
-    }
 }
@@ -40,6 +40,18 @@ public class MPAStorage {
         }
     }
 
+    /**
+     * Links films to their MPA ratings in one JDBC batch
+     *
+     * @param films
+     */
+    public void saveMPA(List<Film> films) {
+        jdbc.batchUpdate("INSERT INTO film_mpa (film_id, mpa_id) VALUES (?, ?)", films.stream()
+                .filter(film -> film.getMpa() != null)
+                .map(film -> new Object[]{film.getId(), film.getMpa().getId()})
+                .toList());
+    }
+
     public void updateMPA(Film film) {
         String updateFilmMpaQuery = "UPDATE film_mpa SET mpa_id = ? WHERE film_id = ?";
         jdbc.update(updateFilmMpaQuery, film.getMpa().getId(), film.getId());
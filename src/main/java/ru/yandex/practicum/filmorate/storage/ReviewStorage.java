@@ -1,10 +1,13 @@
 package ru.yandex.practicum.filmorate.storage;
 
-import lombok.RequiredArgsConstructor;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.yandex.practicum.filmorate.model.Review;
 import ru.yandex.practicum.filmorate.storage.mapper.ReviewMapper;
 
@@ -12,36 +15,48 @@ import java.sql.PreparedStatement;
 import java.sql.Statement;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Repository
-@RequiredArgsConstructor
 public class ReviewStorage {
-    private static final String FIND_ALL_QUERY = "SELECT r.id, r.content, r.is_positive, r.user_id, r.film_id, " +
-            "COALESCE(SUM(CASE WHEN rr.is_like = TRUE THEN 1 WHEN rr.is_like = FALSE THEN -1 ELSE 0 END), 0) AS useful " +
-            "FROM reviews AS r " +
-            "LEFT JOIN review_ratings AS rr ON r.id = rr.review_id " +
-            "GROUP BY r.id, r.content, r.is_positive, r.user_id, r.film_id " +
+    private static final String FIND_ALL_QUERY = "SELECT id, content, is_positive, user_id, film_id, useful " +
+            "FROM reviews " +
             "ORDER BY useful DESC ";
 
     private static final String FIND_TOP_QUERY = FIND_ALL_QUERY + "LIMIT ?";
 
-    private static final String FIND_TOP_BY_FILM_ID = "SELECT r.id, r.content, r.is_positive, r.user_id, r.film_id, " +
-            "COALESCE(SUM(CASE WHEN rr.is_like = TRUE THEN 1 WHEN rr.is_like = FALSE THEN -1 ELSE 0 END), 0) AS useful " +
-            "FROM reviews AS r " +
-            "LEFT JOIN review_ratings AS rr ON r.id = rr.review_id " +
-            "WHERE r.film_id = ? " +
-            "GROUP BY r.id, r.content, r.is_positive, r.user_id, r.film_id " +
+    private static final String FIND_TOP_BY_FILM_ID = "SELECT id, content, is_positive, user_id, film_id, useful " +
+            "FROM reviews " +
+            "WHERE film_id = ? " +
             "ORDER BY useful DESC " +
             "LIMIT ?";
 
-    private static final String FIND_LIKE = "SELECT COUNT(*) FROM review_ratings WHERE review_id = ? AND user_id = ?";
+    private static final String FIND_LIKE = "SELECT is_like FROM review_ratings WHERE review_id = ? AND user_id = ? FOR UPDATE";
     private static final String ADD_LIKE = "INSERT INTO review_ratings (review_id, user_id, is_like) VALUES (?, ?, ?)";
     private static final String UPDATE_LIKE = "UPDATE review_ratings SET is_like = ? WHERE review_id = ? AND user_id = ?";
 
     private static final String DELETE_LIKE_QUERY = "DELETE FROM review_ratings WHERE review_id = ? AND user_id = ? ";
 
+    private static final String UPDATE_USEFUL = "UPDATE reviews SET useful = useful + ? WHERE id = ?";
+
+    private static final String LOCK_REVIEW = "SELECT id FROM reviews WHERE id = ? FOR UPDATE";
+
+    private static final String LOCK_REVIEW_PAGE = "SELECT id FROM reviews WHERE id > ? ORDER BY id LIMIT ? FOR UPDATE";
+
+    private static final String REBUILD_USEFUL = "UPDATE reviews r SET useful = COALESCE((" +
+            "SELECT SUM(CASE WHEN rr.is_like = TRUE THEN 1 ELSE -1 END) " +
+            "FROM review_ratings AS rr WHERE rr.review_id = r.id), 0) " +
+            "WHERE r.id > ? AND r.id <= ?";
+
     private final ReviewMapper mapper;
     private final JdbcTemplate jdbc;
+    private final TransactionTemplate transactionTemplate;
+
+    public ReviewStorage(ReviewMapper mapper, JdbcTemplate jdbc, PlatformTransactionManager transactionManager) {
+        this.mapper = mapper;
+        this.jdbc = jdbc;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
 
 
     public List<Review> findTop(long limit) {
@@ -54,12 +69,7 @@ public class ReviewStorage {
 
     public Optional<Review> findById(Long id) {
         try {
-            String sql = "SELECT r.id, r.content, r.is_positive, r.user_id, r.film_id, " +
-                    "COALESCE(SUM(CASE WHEN rr.is_like = TRUE THEN 1 WHEN rr.is_like = FALSE THEN -1 ELSE 0 END), 0) AS useful " +
-                    "FROM reviews AS r " +
-                    "LEFT JOIN review_ratings AS rr ON r.id = rr.review_id " +
-                    "WHERE r.id = ? " +
-                    "GROUP BY r.id, r.content, r.is_positive, r.user_id, r.film_id";
+            String sql = "SELECT id, content, is_positive, user_id, film_id, useful FROM reviews WHERE id = ?";
             return Optional.ofNullable(jdbc.queryForObject(sql, mapper, id));
         } catch (DataAccessException e) {
             return Optional.empty();
@@ -102,16 +112,70 @@ public class ReviewStorage {
         jdbc.update(sql, id);
     }
 
+    /**
+     * The review row is locked first, so a vote never interleaves with {@link #rebuildUseful()} recomputing it.
+     * FOR UPDATE on review_ratings locks an existing vote only. When two first votes of the user race,
+     * the second insert fails on the unique key and its vote is applied to the row the first one inserted.
+     */
+    @Transactional
     public void addLike(Long reviewId, Long userId, boolean isLike) {
-        Integer count = jdbc.queryForObject(FIND_LIKE, Integer.class, reviewId, userId);
-        if (count != null && count > 0) {
+        lockReview(reviewId);
+        Optional<Boolean> current = findLike(reviewId, userId);
+        if (current.isEmpty()) {
+            try {
+                jdbc.update(ADD_LIKE, reviewId, userId, isLike);
+                jdbc.update(UPDATE_USEFUL, rating(isLike), reviewId);
+                return;
+            } catch (DuplicateKeyException e) {
+                current = findLike(reviewId, userId);
+            }
+        }
+        if (current.isPresent() && current.get() != isLike) {
             jdbc.update(UPDATE_LIKE, isLike, reviewId, userId);
-        } else {
-            jdbc.update(ADD_LIKE, reviewId, userId, isLike);
+            jdbc.update(UPDATE_USEFUL, 2 * rating(isLike), reviewId);
         }
     }
 
+    @Transactional
     public void deleteLike(Long reviewId, Long userId) {
-        jdbc.update(DELETE_LIKE_QUERY, reviewId, userId);
+        lockReview(reviewId);
+        Optional<Boolean> current = findLike(reviewId, userId);
+        if (current.isPresent()) {
+            jdbc.update(DELETE_LIKE_QUERY, reviewId, userId);
+            jdbc.update(UPDATE_USEFUL, -rating(current.get()), reviewId);
+        }
+    }
+
+    /**
+     * Recalculates the useful column of every review from review_ratings, a page of reviews per transaction.
+     * The reviews of a page are locked before their votes are summed, and votes lock their review first,
+     * so no vote can land between the sum and the update. Votes on other pages are not held up.
+     *
+     * @return number of reviews updated
+     */
+    public int rebuildUseful() {
+        AtomicInteger updated = new AtomicInteger();
+        KeysetPages.forEach((afterId, limit) -> transactionTemplate.execute(status -> {
+            List<Long> ids = jdbc.queryForList(LOCK_REVIEW_PAGE, Long.class, afterId, limit);
+            if (!ids.isEmpty()) {
+                updated.addAndGet(jdbc.update(REBUILD_USEFUL, afterId, ids.getLast()));
+            }
+            return ids;
+        }), Long::longValue, id -> { });
+        return updated.get();
+    }
+
+    private void lockReview(Long reviewId) {
+        jdbc.queryForList(LOCK_REVIEW, Long.class, reviewId);
+    }
+
+    private Optional<Boolean> findLike(Long reviewId, Long userId) {
+        return jdbc.query(FIND_LIKE, (rs, rowNum) -> rs.getBoolean("is_like"), reviewId, userId)
+                .stream()
+                .findFirst();
+    }
+
+    private static int rating(boolean isLike) {
+        return isLike ? 1 : -1;
     }
 }
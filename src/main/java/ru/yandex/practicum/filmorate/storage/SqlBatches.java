@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Helpers for queries that take a list of ids in an IN clause.
+ */
+public final class SqlBatches {
+    /**
+     * Max number of ids bound to a single IN clause
+     */
+    public static final int CHUNK_SIZE = 500;
+
+    private SqlBatches() {
+    }
+
+    /**
+     * Splits ids into chunks of at most {@link #CHUNK_SIZE} elements
+     *
+     * @param ids
+     * @return {@link List}
+     */
+    public static <T> List<List<T>> chunks(Collection<T> ids) {
+        List<T> distinct = ids.stream().distinct().toList();
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += CHUNK_SIZE) {
+            chunks.add(distinct.subList(from, Math.min(from + CHUNK_SIZE, distinct.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * Builds "?, ?, ..." for an IN clause
+     *
+     * @param count
+     * @return {@link String}
+     */
+    public static String placeholders(int count) {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (int i = 0; i < count; i++) {
+            joiner.add("?");
+        }
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,120 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.MPA;
+import ru.yandex.practicum.filmorate.storage.ChangeEvents;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Least recently used cache of fully loaded films (MPA, genres, directors) for the film detail page.
+ * Callers get copies, so changing a returned film never changes the cached one.
+ * Invalidated per film on update, like and delete, per liked film when a user is deleted,
+ * and as a whole when directors change.
+ * A load is cached only if its film was not invalidated meanwhile. Invalidations are versioned in a fixed number
+ * of slots indexed by id, as in ResourceVersions, so a like on one film only discards overlapping loads of the few
+ * films sharing its slot.
+ */
+@Component
+@Slf4j
+public class FilmDetailsCache {
+    private static final int SLOTS = 1 << 12;
+
+    private final int maxSize;
+    private final long[] slotVersions = new long[SLOTS];
+    private long allVersion;
+    private final Map<Long, Film> films;
+
+    public FilmDetailsCache(@Value("${filmorate.films.details-cache-size:10000}") int maxSize) {
+        this.maxSize = maxSize;
+        this.films = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Film> eldest) {
+                return size() > FilmDetailsCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Cached film, or the one returned by the loader, which is cached unless an invalidation happened meanwhile
+     *
+     * @param filmId
+     * @param loader
+     * @return {@link Optional<Film>}
+     */
+    public Optional<Film> get(long filmId, Supplier<Optional<Film>> loader) {
+        long loadVersion;
+        long loadAllVersion;
+        synchronized (this) {
+            Film cached = films.get(filmId);
+            if (cached != null) {
+                return Optional.of(copy(cached));
+            }
+            loadVersion = slotVersions[slot(filmId)];
+            loadAllVersion = allVersion;
+        }
+        Optional<Film> loaded = loader.get();
+        loaded.ifPresent(film -> {
+            synchronized (this) {
+                if (slotVersions[slot(filmId)] == loadVersion && allVersion == loadAllVersion) {
+                    films.put(filmId, copy(film));
+                }
+            }
+        });
+        return loaded;
+    }
+
+    public synchronized void invalidate(long filmId) {
+        slotVersions[slot(filmId)]++;
+        films.remove(filmId);
+    }
+
+    public synchronized void invalidateAll() {
+        allVersion++;
+        films.clear();
+        log.debug("Film details cache cleared");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLikeChanged(ChangeEvents.LikeChanged event) {
+        invalidate(event.filmId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilmDeleted(ChangeEvents.FilmDeleted event) {
+        invalidate(event.filmId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(ChangeEvents.UserDeleted event) {
+        event.likedFilmIds().forEach(this::invalidate);
+    }
+
+    private static int slot(long filmId) {
+        return (int) (filmId & (SLOTS - 1));
+    }
+
+    private static Film copy(Film film) {
+        return Film.builder()
+                .id(film.getId())
+                .name(film.getName())
+                .description(film.getDescription())
+                .mpa(film.getMpa() == null ? null : new MPA(film.getMpa().getId(), film.getMpa().getName()))
+                .genres(new LinkedHashSet<>(film.getGenres()))
+                .releaseDate(film.getReleaseDate())
+                .likes(new HashSet<>(film.getLikes()))
+                .directors(new LinkedHashSet<>(film.getDirectors()))
+                .likeCount(film.getLikeCount())
+                .duration(film.getDuration())
+                .build();
+    }
+}
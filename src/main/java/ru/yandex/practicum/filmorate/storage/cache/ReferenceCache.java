@@ -0,0 +1,114 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of a small reference table that is loaded as a whole.
+ * An id missing from the loaded table is answered as not found without going to the database:
+ * whoever changes the table has to {@link #invalidate()} the cache.
+ * A lookup answered from the loaded table counts as a hit, a lookup that had to load it as a miss.
+ *
+ * @param <T> entity type
+ */
+@Slf4j
+public class ReferenceCache<T> {
+    @Getter
+    private final String name;
+    private final Supplier<List<T>> loader;
+    private final Function<T, Long> idExtractor;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final AtomicLong version = new AtomicLong();
+    private volatile Map<Long, T> entries;
+
+    public ReferenceCache(String name, Supplier<List<T>> loader, Function<T, Long> idExtractor) {
+        this.name = name;
+        this.loader = loader;
+        this.idExtractor = idExtractor;
+    }
+
+    public List<T> getAll() {
+        return List.copyOf(entries().values());
+    }
+
+    public Optional<T> getById(Long id) {
+        return Optional.ofNullable(entries().get(id));
+    }
+
+    public boolean containsAll(Collection<Long> ids) {
+        return entries().keySet().containsAll(ids);
+    }
+
+    /**
+     * Drops cached rows, the next lookup loads them again
+     */
+    public synchronized void invalidate() {
+        version.incrementAndGet();
+        entries = null;
+        log.debug("Cache {} invalidated", name);
+    }
+
+    /**
+     * Loads the table right away
+     */
+    public void warmUp() {
+        reload();
+    }
+
+    public int size() {
+        Map<Long, T> current = entries;
+        return current == null ? 0 : current.size();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public double hitRate() {
+        long total = hits() + misses();
+        return total == 0 ? 0 : (double) hits() / total;
+    }
+
+    private Map<Long, T> entries() {
+        Map<Long, T> current = entries;
+        if (current != null) {
+            hits.increment();
+            return current;
+        }
+        misses.increment();
+        return reload();
+    }
+
+    private Map<Long, T> reload() {
+        long loadVersion = version.get();
+        Map<Long, T> loaded = new LinkedHashMap<>();
+        for (T entry : loader.get()) {
+            loaded.put(idExtractor.apply(entry), entry);
+        }
+        Map<Long, T> snapshot = Collections.unmodifiableMap(loaded);
+        synchronized (this) {
+            // an invalidation that happened while loading wins over the loaded rows
+            if (version.get() == loadVersion) {
+                entries = snapshot;
+            }
+        }
+        log.debug("Cache {} loaded {} rows", name, snapshot.size());
+        return snapshot;
+    }
+}
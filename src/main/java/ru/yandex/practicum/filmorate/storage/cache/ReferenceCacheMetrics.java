@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes size, hits, misses and hit rate of the reference data caches
+ * as filmorate.cache.* meters tagged with the cache name.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReferenceCacheMetrics implements MeterBinder {
+    private final ReferenceDataCache referenceDataCache;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (ReferenceCache<?> cache : referenceDataCache.all()) {
+            Gauge.builder("filmorate.cache.size", cache, ReferenceCache::size)
+                    .tag("cache", cache.getName())
+                    .register(registry);
+            Gauge.builder("filmorate.cache.hit.rate", cache, ReferenceCache::hitRate)
+                    .tag("cache", cache.getName())
+                    .register(registry);
+            FunctionCounter.builder("filmorate.cache.hits", cache, ReferenceCache::hits)
+                    .tag("cache", cache.getName())
+                    .register(registry);
+            FunctionCounter.builder("filmorate.cache.misses", cache, ReferenceCache::misses)
+                    .tag("cache", cache.getName())
+                    .register(registry);
+        }
+    }
+}
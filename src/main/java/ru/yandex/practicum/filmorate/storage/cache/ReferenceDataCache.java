@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MPA;
+import ru.yandex.practicum.filmorate.storage.DirectorStorage;
+import ru.yandex.practicum.filmorate.storage.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.MPAStorage;
+
+import java.util.List;
+
+/**
+ * In-process copies of the genres, mpa_ratings and directors tables.
+ * Genres and MPA ratings are static; directors have to be invalidated by whoever changes them.
+ */
+@Component
+@Slf4j
+@Getter
+public class ReferenceDataCache {
+    private final ReferenceCache<Genre> genres;
+    private final ReferenceCache<MPA> mpa;
+    private final ReferenceCache<Director> directors;
+
+    public ReferenceDataCache(GenreStorage genreStorage, MPAStorage mpaStorage, DirectorStorage directorStorage) {
+        this.genres = new ReferenceCache<>("genres", genreStorage::getAll, Genre::getId);
+        this.mpa = new ReferenceCache<>("mpa", mpaStorage::getAll, MPA::getId);
+        this.directors = new ReferenceCache<>("directors", directorStorage::getAll, Director::getId);
+    }
+
+    public List<ReferenceCache<?>> all() {
+        return List.of(genres, mpa, directors);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        all().forEach(ReferenceCache::warmUp);
+        log.info("Reference data cache warmed up: {} genres, {} mpa, {} directors",
+                genres.size(), mpa.size(), directors.size());
+    }
+}
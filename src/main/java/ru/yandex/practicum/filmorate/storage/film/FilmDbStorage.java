@@ -1,16 +1,28 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Primary;
 import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.enums.FilmsSearchBy;
+import ru.yandex.practicum.filmorate.storage.ChangeEvents;
+import ru.yandex.practicum.filmorate.storage.KeysetPages;
+import ru.yandex.practicum.filmorate.storage.SqlBatches;
+import ru.yandex.practicum.filmorate.storage.id.SequenceIdAllocator;
+import ru.yandex.practicum.filmorate.storage.mapper.FilmDetailsExtractor;
 import ru.yandex.practicum.filmorate.storage.mapper.FilmRowMapper;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Repository
@@ -18,13 +30,32 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class FilmDbStorage implements FilmStorage {
     private final FilmRowMapper mapper;
+    private final FilmDetailsExtractor detailsExtractor;
     private final JdbcTemplate jdbc;
-    private static final String BASE_FILM_QUERY = """
-       SELECT f.*, mr.ID AS mpa_id, mr.name AS mpa_name
-       FROM FILMS f
-       LEFT JOIN FILM_GENRES fg ON f.ID = fg.film_id
-       LEFT JOIN MPA_RATINGS mr ON f.MPA_ID = mr.ID
-       """;
+    private final SequenceIdAllocator idAllocator;
+    private final PopularityIndex popularityIndex;
+    private final FilmSearchIndex searchIndex;
+    private final ApplicationEventPublisher events;
+    private static final String INSERT_FILM_QUERY = """
+            INSERT INTO films (id, name, description, duration, release_date, mpa_id)
+            VALUES (?, ?, ?, ?, ?, ?)
+        """;
+    private static final String FILM_DETAILS_COLUMNS = """
+            SELECT f.*, mr.name AS mpa_name,
+                   g.id AS genre_id, g.name AS genre_name,
+                   d.id AS director_id, d.name AS director_name
+            """;
+    private static final String FILM_DETAILS_JOINS = """
+            LEFT JOIN mpa_ratings mr ON f.mpa_id = mr.id
+            LEFT JOIN film_genres fg ON fg.film_id = f.id
+            LEFT JOIN genres g ON g.id = fg.genre_id
+            LEFT JOIN film_directors fd ON fd.film_id = f.id
+            LEFT JOIN directors d ON d.id = fd.director_id
+            """;
+    private static final String FILM_DETAILS_QUERY = FILM_DETAILS_COLUMNS + "FROM films f\n" + FILM_DETAILS_JOINS;
+    // the page is cut from films before the joins, so a film never spans two pages
+    private static final String FILM_DETAILS_PAGE_QUERY = FILM_DETAILS_COLUMNS
+            + "FROM (SELECT * FROM films WHERE id > ? ORDER BY id LIMIT ?) f\n" + FILM_DETAILS_JOINS + "ORDER BY f.id";
 
     @Override
     public Optional<Film> getById(Long id) {
@@ -42,6 +73,44 @@ public class FilmDbStorage implements FilmStorage {
         }
     }
 
+    /**
+     * Loads a film together with its MPA, genres and directors in one query
+     *
+     * @param id
+     * @return {@link Optional<Film>}
+     */
+    @Override
+    public Optional<Film> getDetailsById(long id) {
+        return jdbc.query(FILM_DETAILS_QUERY + "WHERE f.id = ?", detailsExtractor, id);
+    }
+
+    @Override
+    public void forEachWithDetails(Consumer<Film> action) {
+        KeysetPages.forEach((afterId, limit) -> {
+            List<Film> page = new ArrayList<>(limit);
+            jdbc.query(FILM_DETAILS_PAGE_QUERY, rs -> {
+                detailsExtractor.extractEach(rs, page::add);
+                return null;
+            }, afterId, limit);
+            return page;
+        }, Film::getId, action);
+    }
+
+    @Override
+    public List<Film> getByIds(List<Long> ids) {
+        Map<Long, Film> films = new HashMap<>();
+        for (List<Long> chunk : SqlBatches.chunks(ids)) {
+            String findFilmsByIdsQuery = """
+                SELECT f.*, mr.name AS mpa_name
+                FROM FILMS f
+                LEFT JOIN MPA_RATINGS mr ON f.MPA_ID = mr.ID
+                WHERE f.ID IN (%s)
+            """.formatted(SqlBatches.placeholders(chunk.size()));
+            jdbc.query(findFilmsByIdsQuery, mapper, chunk.toArray()).forEach(film -> films.put(film.getId(), film));
+        }
+        return ids.stream().map(films::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
     @Override
     public List<Film> getAll() {
         String findAllFilmsQuery = """
@@ -53,22 +122,38 @@ public class FilmDbStorage implements FilmStorage {
         return jdbc.query(findAllFilmsQuery, mapper);
     }
 
+    @Override
+    public long nextId() {
+        return idAllocator.nextId(SequenceIdAllocator.FILM_SEQUENCE);
+    }
+
+    @Override
+    public long[] nextIds(int count) {
+        return idAllocator.nextIds(SequenceIdAllocator.FILM_SEQUENCE, count);
+    }
+
     @Override
     public Film create(Film film) {
-        String insertFilmQuery = """
-            INSERT INTO films (id, name, description, duration, release_date, mpa_id)
-            VALUES (?, ?, ?, ?, ?, ?)
-        """;
-        jdbc.update(insertFilmQuery,
+        jdbc.update(INSERT_FILM_QUERY,
                 film.getId(),
                 film.getName(),
                 film.getDescription(),
                 film.getDuration(),
                 film.getReleaseDate(),
                 film.getMpa().getId());
+        events.publishEvent(new ChangeEvents.FilmsSaved(List.of(film)));
         return film;
     }
 
+    @Override
+    public void createAll(List<Film> films) {
+        jdbc.batchUpdate(INSERT_FILM_QUERY, films.stream()
+                .map(film -> new Object[]{film.getId(), film.getName(), film.getDescription(), film.getDuration(),
+                        film.getReleaseDate(), film.getMpa().getId()})
+                .toList());
+        events.publishEvent(new ChangeEvents.FilmsSaved(films));
+    }
+
     @Override
     public Film update(Film newFilm) {
         String updateFilmQuery = """
@@ -84,6 +169,7 @@ public class FilmDbStorage implements FilmStorage {
                 newFilm.getMpa().getId(),
                 newFilm.getId()
         );
+        events.publishEvent(new ChangeEvents.FilmsSaved(List.of(newFilm)));
         return newFilm;
     }
 
@@ -91,45 +177,15 @@ public class FilmDbStorage implements FilmStorage {
     public void deleteById(Long id) {
         String deleteFilmQuery = "DELETE FROM films WHERE id = ?";
         jdbc.update(deleteFilmQuery, id);
+        events.publishEvent(new ChangeEvents.FilmDeleted(id));
     }
 
+    /**
+     * Ranked by {@link PopularityIndex}, then loaded by id
+     */
     @Override
-    public List<Film> getTop(int count) {
-        String query = BASE_FILM_QUERY + """
-            ORDER BY f.like_count DESC
-            LIMIT ?;
-        """;
-        return jdbc.query(query, mapper, count).stream().distinct().collect(Collectors.toList());
-    }
-
-    @Override
-    public List<Film> getTopByYear(int count, int year) {
-        String query = BASE_FILM_QUERY + """
-            WHERE EXTRACT(YEAR FROM f.release_date) = ?
-            ORDER BY f.like_count DESC
-            LIMIT ?;
-        """;
-        return jdbc.query(query, mapper, year, count).stream().distinct().collect(Collectors.toList());
-    }
-
-    @Override
-    public List<Film> getTopByGenre(int count, int genreId) {
-        String query = BASE_FILM_QUERY + """
-            WHERE fg.genre_id = ?
-            ORDER BY f.like_count DESC
-            LIMIT ?;
-        """;
-        return jdbc.query(query, mapper, genreId, count).stream().distinct().collect(Collectors.toList());
-    }
-
-    @Override
-    public List<Film> getTopYearAndGenre(int count, int genreId, int year) {
-        String query = BASE_FILM_QUERY + """
-            WHERE fg.genre_id = ? AND EXTRACT(YEAR FROM f.release_date) = ?
-            ORDER BY f.like_count DESC
-            LIMIT ?;
-        """;
-        return jdbc.query(query, mapper, genreId, year, count).stream().distinct().collect(Collectors.toList());
+    public List<Film> getTop(int count, Integer genreId, Integer year) {
+        return getByIds(popularityIndex.getTop(count, genreId, year));
     }
 
     public List<Film> getDirectorFilmSortedByLike(Long directorId) {
@@ -145,7 +201,7 @@ public class FilmDbStorage implements FilmStorage {
             ORDER BY f.like_count DESC
         """;
 
-        return jdbc.query(getDirectorFilmSortedByLikeQuery, mapper, directorId);
+        return sortByLikes(jdbc.query(getDirectorFilmSortedByLikeQuery, mapper, directorId));
     }
 
     public List<Film> getDirectorFilmSortedByYear(Long directorId) {
@@ -181,38 +237,20 @@ public class FilmDbStorage implements FilmStorage {
             ORDER BY f.like_count DESC;
         """;
 
-        return jdbc.query(commonFilmsQuery, mapper, userId, friendId);
+        return sortByLikes(jdbc.query(commonFilmsQuery, mapper, userId, friendId));
     }
 
-    public List<Film> searchByParam(String query, FilmsSearchBy param) {
-        String partOrder = " ORDER BY cnt DESC";
-        String partWhereClause = switch (param) {
-            case TITLE -> " WHERE f.NAME ILIKE CONCAT('%',?,'%')";
-            case DIRECTOR -> " WHERE d.NAME ILIKE CONCAT('%',?,'%')";
-            case ALL -> """
-                WHERE f.NAME ILIKE CONCAT('%',?,'%') OR d.NAME ILIKE CONCAT('%',?,'%')
-                """;
-        };
-
-        String findFilmsByParamQuery = """
-            SELECT DISTINCT f.ID
-                 , f.NAME
-                 , f.DESCRIPTION
-                 , f.DURATION
-                 , f.RELEASE_DATE
-                 , mr.ID AS MPA_ID
-                 , mr.NAME AS MPA_NAME
-                 , f.like_count AS cnt
-            FROM FILMS f
-            LEFT JOIN FILM_MPA fm ON f.ID = fm.FILM_ID
-            LEFT JOIN MPA_RATINGS mr ON fm.MPA_ID = mr.ID
-            LEFT JOIN FILM_DIRECTORS fd ON fd.FILM_ID = f.ID
-            LEFT JOIN DIRECTORS d ON d.ID = fd.DIRECTOR_ID
-        """ + partWhereClause + partOrder;
+    /**
+     * Re-sorts films ordered by the stored like_count, so like changes still pending in {@link LikeCounter} count
+     */
+    private static List<Film> sortByLikes(List<Film> films) {
+        films.sort(Comparator.comparingInt(Film::getLikeCount).reversed());
+        return films;
+    }
 
-        if (param == FilmsSearchBy.ALL) {
-            return jdbc.query(findFilmsByParamQuery, mapper, query, query);
-        }
-        return jdbc.query(findFilmsByParamQuery, mapper, query);
+    public List<Film> searchByParam(String query, FilmsSearchBy param) {
+        List<Film> films = getByIds(new ArrayList<>(searchIndex.search(query, param)));
+        films.sort(Comparator.comparingInt(Film::getLikeCount).reversed().thenComparing(Film::getId));
+        return films;
     }
 }
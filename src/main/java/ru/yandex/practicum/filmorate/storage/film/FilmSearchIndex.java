@@ -0,0 +1,246 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.model.enums.FilmsSearchBy;
+import ru.yandex.practicum.filmorate.storage.ChangeEvents;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Trigram inverted index over film titles and director names, answering the same
+ * case-insensitive substring queries as ILIKE '%query%' without scanning the tables.
+ * Kept in step with films, directors and film directors by the {@link ChangeEvents} of the storages.
+ * Built during context refresh, so it is complete before the web server starts and no change is missed.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class FilmSearchIndex implements SmartInitializingSingleton {
+    private static final int GRAM = 3;
+    private static final String LOAD_FILMS_QUERY = "SELECT id, name FROM films";
+    private static final String LOAD_DIRECTORS_QUERY = "SELECT id, name FROM directors";
+    private static final String LOAD_FILM_DIRECTORS_QUERY = "SELECT film_id, director_id FROM film_directors";
+
+    private final JdbcTemplate jdbc;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, String> titles = new HashMap<>();
+    private final Map<String, Set<Long>> titleGrams = new HashMap<>();
+    private final Map<Long, String> directorNames = new HashMap<>();
+    private final Map<String, Set<Long>> directorGrams = new HashMap<>();
+    private final Map<Long, Set<Long>> filmsByDirector = new HashMap<>();
+    private final Map<Long, Set<Long>> directorsByFilm = new HashMap<>();
+
+    /**
+     * Ids of films whose title and/or director name contains the query, ignoring case
+     *
+     * @param query    - String
+     * @param searchBy - {@link FilmsSearchBy}
+     * @return {@link Set} of film ids
+     */
+    public Set<Long> search(String query, FilmsSearchBy searchBy) {
+        String needle = normalize(query);
+        lock.readLock().lock();
+        try {
+            Set<Long> filmIds = new HashSet<>();
+            if (searchBy != FilmsSearchBy.DIRECTOR) {
+                filmIds.addAll(match(needle, titles, titleGrams));
+            }
+            if (searchBy != FilmsSearchBy.TITLE) {
+                for (Long directorId : match(needle, directorNames, directorGrams)) {
+                    filmIds.addAll(filmsByDirector.getOrDefault(directorId, Set.of()));
+                }
+            }
+            return filmIds;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void putFilm(long filmId, String title) {
+        lock.writeLock().lock();
+        try {
+            put(filmId, title, titles, titleGrams);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeFilm(long filmId) {
+        lock.writeLock().lock();
+        try {
+            remove(filmId, titles, titleGrams);
+            unlinkFilm(filmId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putDirector(long directorId, String name) {
+        lock.writeLock().lock();
+        try {
+            put(directorId, name, directorNames, directorGrams);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeDirector(long directorId) {
+        lock.writeLock().lock();
+        try {
+            remove(directorId, directorNames, directorGrams);
+            Set<Long> filmIds = filmsByDirector.remove(directorId);
+            if (filmIds != null) {
+                for (Long filmId : filmIds) {
+                    directorsByFilm.getOrDefault(filmId, new HashSet<>()).remove(directorId);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the directors linked to the film
+     *
+     * @param filmId
+     * @param directorIds
+     */
+    public void setFilmDirectors(long filmId, Collection<Long> directorIds) {
+        lock.writeLock().lock();
+        try {
+            unlinkFilm(filmId);
+            for (Long directorId : directorIds) {
+                link(filmId, directorId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilmsSaved(ChangeEvents.FilmsSaved event) {
+        event.films().forEach(film -> putFilm(film.getId(), film.getName()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilmDeleted(ChangeEvents.FilmDeleted event) {
+        removeFilm(event.filmId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDirectorSaved(ChangeEvents.DirectorSaved event) {
+        putDirector(event.directorId(), event.name());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDirectorDeleted(ChangeEvents.DirectorDeleted event) {
+        removeDirector(event.directorId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilmDirectorsChanged(ChangeEvents.FilmDirectorsChanged event) {
+        event.directorIdsByFilm().forEach(this::setFilmDirectors);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        lock.writeLock().lock();
+        try {
+            jdbc.query(LOAD_FILMS_QUERY, rs -> {
+                put(rs.getLong("id"), rs.getString("name"), titles, titleGrams);
+            });
+            jdbc.query(LOAD_DIRECTORS_QUERY, rs -> {
+                put(rs.getLong("id"), rs.getString("name"), directorNames, directorGrams);
+            });
+            jdbc.query(LOAD_FILM_DIRECTORS_QUERY, rs -> {
+                link(rs.getLong("film_id"), rs.getLong("director_id"));
+            });
+            log.info("Search index loaded: {} films, {} directors, {} trigrams",
+                    titles.size(), directorNames.size(), titleGrams.size() + directorGrams.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Candidates come from the shortest posting list of the query trigrams and are then checked
+     * for the whole substring, queries shorter than a trigram check every entry
+     */
+    private static Set<Long> match(String needle, Map<Long, String> texts, Map<String, Set<Long>> index) {
+        Collection<Long> candidates = texts.keySet();
+        for (String gram : grams(needle)) {
+            Set<Long> ids = index.get(gram);
+            if (ids == null) {
+                return Set.of();
+            }
+            if (ids.size() < candidates.size()) {
+                candidates = ids;
+            }
+        }
+        Set<Long> matched = new HashSet<>();
+        for (Long id : candidates) {
+            if (texts.get(id).contains(needle)) {
+                matched.add(id);
+            }
+        }
+        return matched;
+    }
+
+    private static void put(long id, String text, Map<Long, String> texts, Map<String, Set<Long>> index) {
+        remove(id, texts, index);
+        String normalized = normalize(text);
+        texts.put(id, normalized);
+        for (String gram : grams(normalized)) {
+            index.computeIfAbsent(gram, k -> new HashSet<>()).add(id);
+        }
+    }
+
+    private static void remove(long id, Map<Long, String> texts, Map<String, Set<Long>> index) {
+        String previous = texts.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String gram : grams(previous)) {
+            Set<Long> ids = index.get(gram);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    index.remove(gram);
+                }
+            }
+        }
+    }
+
+    private void link(long filmId, long directorId) {
+        filmsByDirector.computeIfAbsent(directorId, k -> new HashSet<>()).add(filmId);
+        directorsByFilm.computeIfAbsent(filmId, k -> new HashSet<>()).add(directorId);
+    }
+
+    private void unlinkFilm(long filmId) {
+        Set<Long> directorIds = directorsByFilm.remove(filmId);
+        if (directorIds != null) {
+            for (Long directorId : directorIds) {
+                filmsByDirector.getOrDefault(directorId, new HashSet<>()).remove(filmId);
+            }
+        }
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+}
@@ -5,6 +5,7 @@ import ru.yandex.practicum.filmorate.model.enums.FilmsSearchBy;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface FilmStorage {
 
@@ -13,16 +14,46 @@ public interface FilmStorage {
      */
     Optional<Film> getById(Long id);
 
+    /**
+     * get a film by id together with its MPA, genres and directors
+     */
+    Optional<Film> getDetailsById(long id);
+
+    /**
+     * pass every film with its MPA, genres and directors to the action in id order, without loading them all at once
+     */
+    void forEachWithDetails(Consumer<Film> action);
+
+    /**
+     * get films by ids in storage, in the order of the ids
+     */
+    List<Film> getByIds(List<Long> ids);
+
     /**
      * get all films in storage
      */
     List<Film> getAll();
 
+    /**
+     * allocate an id for a new film
+     */
+    long nextId();
+
+    /**
+     * allocate ids for count new films at once
+     */
+    long[] nextIds(int count);
+
     /**
      * create a film in storage
      */
     Film create(Film film);
 
+    /**
+     * create films with their ids already allocated, in one batch
+     */
+    void createAll(List<Film> films);
+
     /**
      * update a film in storage
      */
@@ -33,9 +64,10 @@ public interface FilmStorage {
      */
     void deleteById(Long id);
 
-    List<Film> getTop(int count);
-
-    List<Film> getTopByYear(int count, int year);
+    /**
+     * get the most liked films, of the genre and the release year when they are given
+     */
+    List<Film> getTop(int count, Integer genreId, Integer year);
 
     /**
      * Get common films between the user and their friend, sorted by popularity
@@ -47,8 +79,4 @@ public interface FilmStorage {
     List<Film> getDirectorFilmSortedByYear(Long directorId);
 
     List<Film> searchByParam(String query, FilmsSearchBy param);
-
-    List<Film> getTopByGenre(int count, int genreId);
-
-    List<Film> getTopYearAndGenre(int count, int genreId, int year);
 }
@@ -2,129 +2,299 @@ package ru.yandex.practicum.filmorate.storage.film;
 
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.enums.FilmsSearchBy;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.LongStream;
 
+/**
+ * Concurrent in-memory film storage. Films and like sets are concurrent collections; changes to the likes
+ * of a film take one of {@link #STRIPES} locks picked by film id, so likes of different films do not contend.
+ * Films are kept ranked by like count, so top queries walk the ranking instead of sorting all films.
+ */
 @Component
 public class InMemoryFilmStorage implements FilmStorage {
+    private static final int STRIPES = 64;
+    private static final Comparator<Film> BY_LIKES = Comparator.comparingInt(Film::getLikeCount).reversed()
+            .thenComparing(Film::getId);
+
     /**
      * Films Map
      */
-    private final Map<Long, Film> films = new HashMap<>();
+    private final Map<Long, Film> films = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> filmsByUser = new ConcurrentHashMap<>();
+    private final Map<Long, Rank> ranks = new ConcurrentHashMap<>();
+    private final NavigableSet<Rank> ranking = new ConcurrentSkipListSet<>();
+    private final Lock[] locks = new Lock[STRIPES];
+    private final AtomicLong lastId = new AtomicLong();
+
+    public InMemoryFilmStorage() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
 
     @Override
     public Optional<Film> getById(Long id) {
-        Film film = films.get(id);
-        if (film == null) {
-            throw new NotFoundException("Фильм с ID - %d не найден.".formatted(id));
-        }
-        return Optional.of(film);
+        return Optional.ofNullable(films.get(id));
+    }
+
+    @Override
+    public Optional<Film> getDetailsById(long id) {
+        return Optional.ofNullable(films.get(id));
+    }
+
+    @Override
+    public List<Film> getByIds(List<Long> ids) {
+        return ids.stream().map(films::get).filter(Objects::nonNull).toList();
     }
 
     @Override
     public List<Film> getAll() {
-        return films.values().stream().toList();
+        return List.copyOf(films.values());
+    }
+
+    @Override
+    public void forEachWithDetails(Consumer<Film> action) {
+        films.values().stream().sorted(Comparator.comparingLong(Film::getId)).forEach(action);
+    }
+
+    @Override
+    public long nextId() {
+        return lastId.incrementAndGet();
+    }
+
+    @Override
+    public long[] nextIds(int count) {
+        long last = lastId.addAndGet(count);
+        return LongStream.rangeClosed(last - count + 1, last).toArray();
     }
 
     @Override
     public Film create(Film film) {
-        films.put(film.getId(), film);
+        Set<Long> likes = ConcurrentHashMap.newKeySet();
+        if (film.getLikes() != null) {
+            likes.addAll(film.getLikes());
+        }
+        Lock lock = lockFor(film.getId());
+        lock.lock();
+        try {
+            film.setLikes(likes);
+            films.put(film.getId(), film);
+            likes.forEach(userId -> filmsByUser.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet())
+                    .add(film.getId()));
+            rank(film);
+        } finally {
+            lock.unlock();
+        }
         return film;
     }
 
+    @Override
+    public void createAll(List<Film> films) {
+        films.forEach(this::create);
+    }
+
     @Override
     public Film update(Film newFilm) {
-        Film oldFilm = films.get(newFilm.getId());
-        films.put(oldFilm.getId(), newFilm);
+        Lock lock = lockFor(newFilm.getId());
+        lock.lock();
+        try {
+            Film oldFilm = films.get(newFilm.getId());
+            if (oldFilm == null) {
+                throw new NotFoundException("Фильм с ID - %d не найден.".formatted(newFilm.getId()));
+            }
+            newFilm.setLikes(oldFilm.getLikes());
+            newFilm.setLikeCount(oldFilm.getLikeCount());
+            films.put(newFilm.getId(), newFilm);
+        } finally {
+            lock.unlock();
+        }
         return newFilm;
     }
 
     @Override
     public void deleteById(Long id) {
-        films.remove(id);
+        Lock lock = lockFor(id);
+        lock.lock();
+        try {
+            Film film = films.remove(id);
+            if (film == null) {
+                return;
+            }
+            film.getLikes().forEach(userId -> forgetLike(userId, id));
+            Rank rank = ranks.remove(id);
+            if (rank != null) {
+                ranking.remove(rank);
+            }
+        } finally {
+            lock.unlock();
+        }
     }
 
-
     public Set<Long> getLikes(Long filmId) {
-        return getById(filmId)
-                .orElseThrow(() -> new NotFoundException("Фильм с ID - %d не найден.".formatted(filmId)))
-                .getLikes();
+        return Collections.unmodifiableSet(getExisting(filmId).getLikes());
     }
 
-    @Override
-    public List<Film> getTop(int count) {
-        return films.values().stream()
-                .sorted(Comparator.comparingInt(f -> -f.getLikes().size()))
-                .limit(count)
-                .toList();
+    /**
+     * Adds a like, returns false if the user already liked the film
+     */
+    public boolean addLike(Long userId, Long filmId) {
+        Lock lock = lockFor(filmId);
+        lock.lock();
+        try {
+            Film film = getExisting(filmId);
+            if (!film.getLikes().add(userId)) {
+                return false;
+            }
+            filmsByUser.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(filmId);
+            rank(film);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes a like, returns false if the user did not like the film
+     */
+    public boolean removeLike(Long userId, Long filmId) {
+        Lock lock = lockFor(filmId);
+        lock.lock();
+        try {
+            Film film = getExisting(filmId);
+            if (!film.getLikes().remove(userId)) {
+                return false;
+            }
+            forgetLike(userId, filmId);
+            rank(film);
+            return true;
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
-    public List<Film> getTopByYear(int count, int year) {
-        return films.values().stream()
-                .filter(film -> film.getReleaseDate().getYear() == year)
-                .sorted(Comparator.comparingInt(f -> -f.getLikes().size()))
-                .limit(count)
-                .toList();
+    public List<Film> getTop(int count, Integer genreId, Integer year) {
+        return top(count, film -> (genreId == null || hasGenre(film, genreId))
+                && (year == null || film.getReleaseDate().getYear() == year));
     }
 
     @Override
     public List<Film> getDirectorFilmSortedByLike(Long directorId) {
-        return List.of();
+        return films.values().stream()
+                .filter(film -> hasDirector(film, directorId))
+                .sorted(BY_LIKES)
+                .toList();
     }
 
     @Override
     public List<Film> getDirectorFilmSortedByYear(Long directorId) {
-        return List.of();
+        return films.values().stream()
+                .filter(film -> hasDirector(film, directorId))
+                .sorted(Comparator.comparing(Film::getReleaseDate).thenComparing(Film::getId))
+                .toList();
     }
 
     @Override
     public List<Film> searchByParam(String query, FilmsSearchBy param) {
-        return List.of();
-    }
-
-    @Override
-    public List<Film> getTopByGenre(int count, int genreId) {
+        String needle = query.toLowerCase();
         return films.values().stream()
-                .filter(film -> film.getGenres().stream().anyMatch(genre -> genre.getId() == genreId))
-                .sorted(Comparator.comparingInt(f -> -f.getLikes().size()))
-                .limit(count)
+                .filter(film -> param != FilmsSearchBy.DIRECTOR && contains(film.getName(), needle)
+                        || param != FilmsSearchBy.TITLE && film.getDirectors() != null
+                        && film.getDirectors().stream().map(Director::getName).anyMatch(name -> contains(name, needle)))
+                .sorted(BY_LIKES)
                 .toList();
     }
 
     @Override
-    public List<Film> getTopYearAndGenre(int count, int genreId, int year) {
-        return films.values().stream()
-                .filter(film -> film.getGenres().stream().anyMatch(genre -> genre.getId() == genreId))
-                .filter(film -> film.getReleaseDate().getYear() == year)
-                .sorted(Comparator.comparingInt(f -> -f.getLikes().size()))
-                .limit(count)
+    public List<Film> getCommonFilms(long userId, long friendId) {
+        Set<Long> userFilms = filmsByUser.getOrDefault(userId, Set.of());
+        Set<Long> friendFilms = filmsByUser.getOrDefault(friendId, Set.of());
+        return userFilms.stream()
+                .filter(friendFilms::contains)
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .sorted(BY_LIKES)
                 .toList();
     }
 
-    public void addLike(Long userId, Long filmId) {
-        getById(filmId)
-                .orElseThrow(() -> new NotFoundException("Фильм с ID - %d не найден.".formatted(filmId)))
-                .getLikes()
-                .add(userId);
+    /**
+     * Walks the ranking from the most liked film. The ranking is weakly consistent: a film being re-ranked
+     * can briefly show up at both positions, so ids seen once are skipped.
+     */
+    private List<Film> top(int count, Predicate<Film> filter) {
+        List<Film> top = new ArrayList<>(count);
+        Set<Long> seen = new HashSet<>();
+        for (Rank rank : ranking) {
+            if (top.size() >= count) {
+                break;
+            }
+            Film film = films.get(rank.filmId());
+            if (film != null && seen.add(rank.filmId()) && filter.test(film)) {
+                top.add(film);
+            }
+        }
+        return top;
     }
 
+    /**
+     * Moves the film to the position of its current like count. Called under the film's lock.
+     */
+    private void rank(Film film) {
+        int likes = film.getLikes().size();
+        film.setLikeCount(likes);
+        Rank rank = new Rank(film.getId(), likes);
+        ranking.add(rank);
+        Rank old = ranks.put(film.getId(), rank);
+        if (old != null && !old.equals(rank)) {
+            ranking.remove(old);
+        }
+    }
 
-    public void removeLike(Long userId, Long filmId) {
-        getById(filmId)
-                .orElseThrow(() -> new NotFoundException("Фильм с ID - %d не найден.".formatted(filmId)))
-                .getLikes()
-                .remove(userId);
+    private void forgetLike(Long userId, Long filmId) {
+        Set<Long> userFilms = filmsByUser.get(userId);
+        if (userFilms != null) {
+            userFilms.remove(filmId);
+        }
     }
 
-    @Override
-    public List<Film> getCommonFilms(long userId, long friendId) {
-        return films.values().stream()
-                .filter(film -> film.getLikes().contains(userId) && film.getLikes().contains(friendId))
-                .sorted(Comparator.comparingInt((Film film) -> film.getLikes().size()).reversed())
-                .collect(Collectors.toList());
+    private Film getExisting(Long filmId) {
+        return getById(filmId)
+                .orElseThrow(() -> new NotFoundException("Фильм с ID - %d не найден.".formatted(filmId)));
+    }
+
+    private Lock lockFor(Long filmId) {
+        return locks[Math.floorMod(filmId.hashCode(), STRIPES)];
+    }
+
+    private static boolean hasGenre(Film film, long genreId) {
+        return film.getGenres() != null && film.getGenres().stream().anyMatch(genre -> genre.getId() == genreId);
+    }
+
+    private static boolean hasDirector(Film film, Long directorId) {
+        return film.getDirectors() != null
+                && film.getDirectors().stream().anyMatch(director -> director.getId().equals(directorId));
+    }
+
+    private static boolean contains(String value, String needle) {
+        return value != null && value.toLowerCase().contains(needle);
+    }
+
+    private record Rank(long filmId, int likes) implements Comparable<Rank> {
+        @Override
+        public int compareTo(Rank other) {
+            int byLikes = Integer.compare(other.likes, likes);
+            return byLikes != 0 ? byLikes : Long.compare(filmId, other.filmId);
+        }
     }
 }
@@ -0,0 +1,149 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.storage.ChangeEvents;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind counter for films.like_count. Like changes are summed in a {@link LongAdder} per film
+ * and applied to the films table in one batch every filmorate.likes.flush-interval-ms, so a popular film
+ * does not serialize all its likes on its row lock. Readers add {@link #pending(long)} to the stored count.
+ * Like changes are added to the pending sums by an after-commit listener, or right away when no transaction
+ * is active, so a like written inside a transaction is not counted until it commits and a rolled back one never.
+ * film_likes stays the source of truth: like_count is recounted from it in {@link #afterSingletonsInstantiated()},
+ * once all singletons exist and before the web server starts. The recount clears the pending sums in the same
+ * transaction, under the flush lock.
+ */
+@Component
+@Slf4j
+public class LikeCounter implements SmartInitializingSingleton {
+    private static final String APPLY_DELTA_QUERY = "UPDATE films SET like_count = like_count + ? WHERE id = ?";
+    private static final String RECOUNT_QUERY = """
+            UPDATE films f
+            SET like_count = (SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = f.id)
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Long, LongAdder> pending = new ConcurrentHashMap<>();
+    // not a monitor: flushes write to the database and may run on a virtual thread
+    private final Lock flushLock = new ReentrantLock();
+
+    public LikeCounter(JdbcTemplate jdbc, PlatformTransactionManager transactionManager) {
+        this.jdbc = jdbc;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public void add(long filmId, int delta) {
+        pending.computeIfAbsent(filmId, id -> new LongAdder()).add(delta);
+    }
+
+    /**
+     * Like changes of the film not yet written to films.like_count
+     */
+    public long pending(long filmId) {
+        LongAdder delta = pending.get(filmId);
+        return delta == null ? 0 : delta.sum();
+    }
+
+    /**
+     * Forgets pending changes of a deleted film
+     */
+    public void remove(long filmId) {
+        pending.remove(filmId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLikeChanged(ChangeEvents.LikeChanged event) {
+        add(event.filmId(), event.added() ? 1 : -1);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilmDeleted(ChangeEvents.FilmDeleted event) {
+        remove(event.filmId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(ChangeEvents.UserDeleted event) {
+        event.likedFilmIds().forEach(filmId -> add(filmId, -1));
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.likes.flush-interval-ms:1000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushPending();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushPending() {
+        List<Object[]> batch = new ArrayList<>();
+        List<LongAdder> adders = new ArrayList<>();
+        pending.forEach((filmId, adder) -> {
+            long delta = adder.sum();
+            if (delta != 0) {
+                batch.add(new Object[]{delta, filmId});
+                adders.add(adder);
+            }
+        });
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbc.batchUpdate(APPLY_DELTA_QUERY, batch));
+        } catch (DataAccessException e) {
+            log.warn("Failed to flush like counts of {} films, will retry", batch.size(), e);
+            return;
+        }
+        // taken out only once the write is committed: until then readers see the delta in pending alone
+        for (int i = 0; i < adders.size(); i++) {
+            adders.get(i).add(-(long) batch.get(i)[0]);
+        }
+        log.debug("Flushed like counts of {} films", batch.size());
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        recount();
+    }
+
+    /**
+     * Recounts like_count from film_likes, repairing changes lost when the application stopped without a flush.
+     * Pending changes are already counted in film_likes, so they are dropped in the same transaction.
+     */
+    public void recount() {
+        flushLock.lock();
+        try {
+            Integer films = transactionTemplate.execute(status -> {
+                pending.clear();
+                return jdbc.update(RECOUNT_QUERY);
+            });
+            log.info("Like counts recounted for {} films", films);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        flush();
+    }
+}
@@ -0,0 +1,228 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.ChangeEvents;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Film ids ordered by like count, partitioned by genre, release year and both.
+ * Kept in step with film_likes and with film genres / release dates by the {@link ChangeEvents} of the storages,
+ * so top queries never reach the database. Loaded from film_likes rather than films.like_count, which may lag
+ * behind, once all beans exist and before the web server accepts the first write.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class PopularityIndex implements SmartInitializingSingleton {
+    private static final String LOAD_QUERY = """
+            SELECT f.id, f.release_date, fg.genre_id,
+                   (SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = f.id) AS likes
+            FROM films f
+            LEFT JOIN film_genres fg ON fg.film_id = f.id
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, IndexedFilm> films = new HashMap<>();
+    private final NavigableSet<Rank> all = new TreeSet<>();
+    private final Map<Integer, NavigableSet<Rank>> byYear = new HashMap<>();
+    private final Map<Long, NavigableSet<Rank>> byGenre = new HashMap<>();
+    private final Map<GenreYear, NavigableSet<Rank>> byGenreAndYear = new HashMap<>();
+
+    /**
+     * Ids of the most liked films, most liked first
+     *
+     * @param count   - int
+     * @param genreId - Integer (nullable)
+     * @param year    - Integer (nullable)
+     * @return {@link List} of film ids
+     */
+    public List<Long> getTop(int count, Integer genreId, Integer year) {
+        lock.readLock().lock();
+        try {
+            NavigableSet<Rank> ranks;
+            if (genreId != null && year != null) {
+                ranks = byGenreAndYear.get(new GenreYear(genreId, year));
+            } else if (genreId != null) {
+                ranks = byGenre.get(genreId.longValue());
+            } else if (year != null) {
+                ranks = byYear.get(year);
+            } else {
+                ranks = all;
+            }
+            if (ranks == null) {
+                return List.of();
+            }
+            return ranks.stream().limit(count).map(Rank::filmId).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a new film or refreshes genres and release year of an existing one, keeping its likes
+     *
+     * @param film
+     */
+    public void put(Film film) {
+        Set<Long> genreIds = new HashSet<>();
+        if (film.getGenres() != null) {
+            film.getGenres().forEach(genre -> genreIds.add(genre.getId()));
+        }
+        lock.writeLock().lock();
+        try {
+            IndexedFilm old = films.remove(film.getId());
+            int likes = 0;
+            if (old != null) {
+                unlink(old);
+                likes = old.likes();
+            }
+            IndexedFilm indexed = new IndexedFilm(film.getId(), film.getReleaseDate().getYear(), genreIds, likes);
+            films.put(indexed.filmId(), indexed);
+            link(indexed);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long filmId) {
+        lock.writeLock().lock();
+        try {
+            IndexedFilm old = films.remove(filmId);
+            if (old != null) {
+                unlink(old);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Shifts the like count of a film
+     *
+     * @param filmId
+     * @param delta  - +1 on like, -1 on unlike
+     */
+    public void changeLikes(long filmId, int delta) {
+        lock.writeLock().lock();
+        try {
+            IndexedFilm old = films.get(filmId);
+            if (old == null) {
+                return;
+            }
+            unlink(old);
+            IndexedFilm indexed = new IndexedFilm(filmId, old.year(), old.genreIds(), old.likes() + delta);
+            films.put(filmId, indexed);
+            link(indexed);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilmsSaved(ChangeEvents.FilmsSaved event) {
+        event.films().forEach(this::put);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilmDeleted(ChangeEvents.FilmDeleted event) {
+        remove(event.filmId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLikeChanged(ChangeEvents.LikeChanged event) {
+        changeLikes(event.filmId(), event.added() ? 1 : -1);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(ChangeEvents.UserDeleted event) {
+        event.likedFilmIds().forEach(filmId -> changeLikes(filmId, -1));
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        lock.writeLock().lock();
+        try {
+            Map<Long, IndexedFilm> rows = new HashMap<>();
+            jdbc.query(LOAD_QUERY, rs -> {
+                long filmId = rs.getLong("id");
+                IndexedFilm indexed = rows.get(filmId);
+                if (indexed == null) {
+                    indexed = new IndexedFilm(filmId, rs.getDate("release_date").toLocalDate().getYear(),
+                            new HashSet<>(), rs.getInt("likes"));
+                    rows.put(filmId, indexed);
+                }
+                long genreId = rs.getLong("genre_id");
+                if (!rs.wasNull()) {
+                    indexed.genreIds().add(genreId);
+                }
+            });
+            rows.values().forEach(indexed -> {
+                films.put(indexed.filmId(), indexed);
+                link(indexed);
+            });
+            log.info("Popularity index loaded with {} films", films.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void link(IndexedFilm film) {
+        Rank rank = film.rank();
+        all.add(rank);
+        byYear.computeIfAbsent(film.year(), k -> new TreeSet<>()).add(rank);
+        for (Long genreId : film.genreIds()) {
+            byGenre.computeIfAbsent(genreId, k -> new TreeSet<>()).add(rank);
+            byGenreAndYear.computeIfAbsent(new GenreYear(genreId, film.year()), k -> new TreeSet<>()).add(rank);
+        }
+    }
+
+    private void unlink(IndexedFilm film) {
+        Rank rank = film.rank();
+        all.remove(rank);
+        removeFrom(byYear, film.year(), rank);
+        for (Long genreId : film.genreIds()) {
+            removeFrom(byGenre, genreId, rank);
+            removeFrom(byGenreAndYear, new GenreYear(genreId, film.year()), rank);
+        }
+    }
+
+    private static <K> void removeFrom(Map<K, NavigableSet<Rank>> partitions, K key, Rank rank) {
+        NavigableSet<Rank> ranks = partitions.get(key);
+        if (ranks != null) {
+            ranks.remove(rank);
+            if (ranks.isEmpty()) {
+                partitions.remove(key);
+            }
+        }
+    }
+
+    private record IndexedFilm(long filmId, int year, Set<Long> genreIds, int likes) {
+        Rank rank() {
+            return new Rank(filmId, likes);
+        }
+    }
+
+    /**
+     * Most liked first, ties broken by film id
+     */
+    private record Rank(long filmId, int likes) implements Comparable<Rank> {
+        @Override
+        public int compareTo(Rank other) {
+            int byLikes = Integer.compare(other.likes, likes);
+            return byLikes != 0 ? byLikes : Long.compare(filmId, other.filmId);
+        }
+    }
+
+    private record GenreYear(long genreId, int year) {
+    }
+}
@@ -0,0 +1,161 @@
+package ru.yandex.practicum.filmorate.storage.graph;
+
+import java.util.Arrays;
+
+/**
+ * Ascending set of longs split into chunks of at most {@link #CHUNK} ids. Adding or removing an id shifts
+ * the tail of one chunk in place, a full chunk is split in two, so a change never copies the whole set
+ * however many ids it holds. Chunks grow by half until they are full, small sets stay small.
+ * Not thread-safe, callers guard access.
+ */
+final class ChunkedLongSet {
+    static final int CHUNK = 1024;
+    private static final long[][] NO_CHUNKS = new long[0][];
+    private static final int[] NO_SIZES = new int[0];
+
+    private long[][] chunks = NO_CHUNKS;
+    private int[] sizes = NO_SIZES;
+    private int chunkCount;
+    private int size;
+
+    /**
+     * Set of the given ascending ids without duplicates, in full chunks
+     */
+    static ChunkedLongSet of(long[] sorted) {
+        ChunkedLongSet set = new ChunkedLongSet();
+        int count = (sorted.length + CHUNK - 1) / CHUNK;
+        set.chunks = new long[count][];
+        set.sizes = new int[count];
+        for (int i = 0; i < count; i++) {
+            set.chunks[i] = Arrays.copyOfRange(sorted, i * CHUNK, Math.min(sorted.length, (i + 1) * CHUNK));
+            set.sizes[i] = set.chunks[i].length;
+        }
+        set.chunkCount = count;
+        set.size = sorted.length;
+        return set;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(long value) {
+        if (chunkCount == 0) {
+            return false;
+        }
+        int chunk = chunkFor(value);
+        return Arrays.binarySearch(chunks[chunk], 0, sizes[chunk], value) >= 0;
+    }
+
+    /**
+     * @return true if the value was not in the set
+     */
+    boolean add(long value) {
+        if (chunkCount == 0) {
+            insertChunk(0, new long[4]);
+        }
+        int chunk = chunkFor(value);
+        int at = Arrays.binarySearch(chunks[chunk], 0, sizes[chunk], value);
+        if (at >= 0) {
+            return false;
+        }
+        at = -at - 1;
+        if (sizes[chunk] == CHUNK) {
+            split(chunk);
+            if (at > sizes[chunk]) {
+                at -= sizes[chunk];
+                chunk++;
+            }
+        } else if (sizes[chunk] == chunks[chunk].length) {
+            int grown = Math.min(CHUNK, sizes[chunk] + (sizes[chunk] >> 1) + 1);
+            chunks[chunk] = Arrays.copyOf(chunks[chunk], grown);
+        }
+        long[] values = chunks[chunk];
+        System.arraycopy(values, at, values, at + 1, sizes[chunk] - at);
+        values[at] = value;
+        sizes[chunk]++;
+        size++;
+        return true;
+    }
+
+    /**
+     * @return true if the value was in the set
+     */
+    boolean remove(long value) {
+        if (chunkCount == 0) {
+            return false;
+        }
+        int chunk = chunkFor(value);
+        long[] values = chunks[chunk];
+        int at = Arrays.binarySearch(values, 0, sizes[chunk], value);
+        if (at < 0) {
+            return false;
+        }
+        System.arraycopy(values, at + 1, values, at, sizes[chunk] - at - 1);
+        sizes[chunk]--;
+        size--;
+        if (sizes[chunk] == 0) {
+            removeChunk(chunk);
+        }
+        return true;
+    }
+
+    /**
+     * A copy of the ids, ascending
+     */
+    long[] toArray() {
+        long[] result = new long[size];
+        int offset = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            System.arraycopy(chunks[i], 0, result, offset, sizes[i]);
+            offset += sizes[i];
+        }
+        return result;
+    }
+
+    /**
+     * The first chunk whose last id is not below the value, or the last chunk
+     */
+    private int chunkFor(long value) {
+        int low = 0;
+        int high = chunkCount - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (chunks[middle][sizes[middle] - 1] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void split(int chunk) {
+        int half = CHUNK / 2;
+        long[] upper = new long[CHUNK];
+        System.arraycopy(chunks[chunk], half, upper, 0, CHUNK - half);
+        sizes[chunk] = half;
+        insertChunk(chunk + 1, upper);
+        sizes[chunk + 1] = CHUNK - half;
+    }
+
+    private void insertChunk(int at, long[] values) {
+        if (chunkCount == chunks.length) {
+            int grown = chunkCount + (chunkCount >> 1) + 1;
+            chunks = Arrays.copyOf(chunks, grown);
+            sizes = Arrays.copyOf(sizes, grown);
+        }
+        System.arraycopy(chunks, at, chunks, at + 1, chunkCount - at);
+        System.arraycopy(sizes, at, sizes, at + 1, chunkCount - at);
+        chunks[at] = values;
+        sizes[at] = 0;
+        chunkCount++;
+    }
+
+    private void removeChunk(int at) {
+        System.arraycopy(chunks, at + 1, chunks, at, chunkCount - at - 1);
+        System.arraycopy(sizes, at + 1, sizes, at, chunkCount - at - 1);
+        chunkCount--;
+        chunks[chunkCount] = null;
+    }
+}
@@ -0,0 +1,145 @@
+package ru.yandex.practicum.filmorate.storage.graph;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.storage.ChangeEvents;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory copy of user_friendships: the ascending ids of the friends of every user, and the reverse
+ * direction to drop a deleted user from the lists of those who befriended them.
+ * Friend lists are short, so arrays are replaced, never mutated, and a handed out array stays valid.
+ * The graph is loaded with the context, ahead of the first request.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class FriendGraph implements SmartInitializingSingleton {
+    private static final String LOAD_QUERY = "SELECT user1_id, user2_id FROM user_friendships";
+
+    private final JdbcTemplate jdbc;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private LongObjectMap<long[]> friendsByUser = new LongObjectMap<>();
+    private LongObjectMap<long[]> befriendedByUser = new LongObjectMap<>();
+
+    /**
+     * Ids of the user's friends, ascending
+     */
+    public long[] getFriends(long userId) {
+        lock.readLock().lock();
+        try {
+            return friendsByUser.getOrDefault(userId, SortedLongArrays.EMPTY);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the friends both users have, found by a linear merge of their friend lists
+     */
+    public long[] getCommonFriends(long userId, long otherId) {
+        return SortedLongArrays.intersection(getFriends(userId), getFriends(otherId));
+    }
+
+    public void addFriend(long userId, long friendId) {
+        lock.writeLock().lock();
+        try {
+            friendsByUser.put(userId, SortedLongArrays.insert(friendsByUser.get(userId), friendId));
+            befriendedByUser.put(friendId, SortedLongArrays.insert(befriendedByUser.get(friendId), userId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeFriend(long userId, long friendId) {
+        lock.writeLock().lock();
+        try {
+            removeFrom(friendsByUser, userId, friendId);
+            removeFrom(befriendedByUser, friendId, userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops the friendships of a deleted user in both directions
+     */
+    public void removeUser(long userId) {
+        lock.writeLock().lock();
+        try {
+            long[] friends = friendsByUser.remove(userId);
+            if (friends != null) {
+                for (long friendId : friends) {
+                    removeFrom(befriendedByUser, friendId, userId);
+                }
+            }
+            long[] befriended = befriendedByUser.remove(userId);
+            if (befriended != null) {
+                for (long otherId : befriended) {
+                    removeFrom(friendsByUser, otherId, userId);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFriendshipChanged(ChangeEvents.FriendshipChanged event) {
+        if (event.added()) {
+            addFriend(event.userId(), event.friendId());
+        } else {
+            removeFriend(event.userId(), event.friendId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(ChangeEvents.UserDeleted event) {
+        removeUser(event.userId());
+    }
+
+    private static void removeFrom(LongObjectMap<long[]> adjacencies, long id, long removed) {
+        long[] ids = adjacencies.get(id);
+        if (ids == null) {
+            return;
+        }
+        long[] remaining = SortedLongArrays.remove(ids, removed);
+        if (remaining.length == 0) {
+            adjacencies.remove(id);
+        } else {
+            adjacencies.put(id, remaining);
+        }
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        LongObjectMap<LongBuffer> friends = new LongObjectMap<>();
+        LongObjectMap<LongBuffer> befriended = new LongObjectMap<>();
+        jdbc.query(LOAD_QUERY, rs -> {
+            long userId = rs.getLong("user1_id");
+            long friendId = rs.getLong("user2_id");
+            friends.computeIfAbsent(userId, id -> new LongBuffer()).add(friendId);
+            befriended.computeIfAbsent(friendId, id -> new LongBuffer()).add(userId);
+        });
+        lock.writeLock().lock();
+        try {
+            friendsByUser = toSortedArrays(friends);
+            befriendedByUser = toSortedArrays(befriended);
+            log.info("Friend graph loaded: {} users with friends", friendsByUser.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static LongObjectMap<long[]> toSortedArrays(LongObjectMap<LongBuffer> buffers) {
+        LongObjectMap<long[]> arrays = new LongObjectMap<>(buffers.size());
+        buffers.forEach((id, buffer) -> arrays.put(id, buffer.toSortedArray()));
+        return arrays;
+    }
+}
@@ -0,0 +1,245 @@
+package ru.yandex.practicum.filmorate.storage.graph;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.storage.ChangeEvents;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory copy of film_likes in both directions: user to liked films and film to users who liked it.
+ * Ids are kept in {@link ChunkedLongSet}s behind {@link LongObjectMap}s, so no id is boxed and a like moves at most
+ * one chunk of ids, even on a film liked by millions. The graph lock guards only the maps; each adjacency is guarded
+ * by its own monitor, so likes on different films and users do not wait for each other. Readers get copies.
+ * Read in full while the context starts, before any request can change a like.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class LikeGraph implements SmartInitializingSingleton {
+    private static final String LOAD_QUERY = "SELECT film_id, user_id FROM film_likes";
+
+    private final JdbcTemplate jdbc;
+    private final List<LikeListener> listeners = new CopyOnWriteArrayList<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LongObjectMap<Adjacency> filmsByUser = new LongObjectMap<>();
+    private final LongObjectMap<Adjacency> usersByFilm = new LongObjectMap<>();
+
+    /**
+     * Called after a like of the user on the film was added or removed
+     */
+    @FunctionalInterface
+    public interface LikeListener {
+        void likeChanged(long userId, long filmId);
+    }
+
+    public void addListener(LikeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Ids of films liked by the user, ascending
+     */
+    public long[] getFilms(long userId) {
+        return adjacency(filmsByUser, userId).ids();
+    }
+
+    /**
+     * Ids of users who liked the film, ascending
+     */
+    public long[] getUsers(long filmId) {
+        return adjacency(usersByFilm, filmId).ids();
+    }
+
+    public int countLikes(long filmId) {
+        return adjacency(usersByFilm, filmId).size();
+    }
+
+    /**
+     * Number of changes made to the likes of a user, used to tell whether derived data is stale
+     */
+    public long getVersion(long userId) {
+        return adjacency(filmsByUser, userId).version();
+    }
+
+    /**
+     * Number of changes made to the likes of a film, used to tell whether derived data is stale
+     */
+    public long getFilmVersion(long filmId) {
+        return adjacency(usersByFilm, filmId).version();
+    }
+
+    public void addLike(long userId, long filmId) {
+        boolean added = adjacencyToChange(filmsByUser, userId).add(filmId);
+        adjacencyToChange(usersByFilm, filmId).add(userId);
+        if (added) {
+            notifyListeners(userId, filmId);
+        }
+    }
+
+    public void removeLike(long userId, long filmId) {
+        boolean removed = adjacency(filmsByUser, userId).remove(filmId);
+        adjacency(usersByFilm, filmId).remove(userId);
+        if (removed) {
+            notifyListeners(userId, filmId);
+        }
+    }
+
+    /**
+     * Drops all likes of a deleted film
+     */
+    public void removeFilm(long filmId) {
+        Adjacency users = detach(usersByFilm, filmId);
+        if (users == null) {
+            return;
+        }
+        for (long userId : users.ids()) {
+            adjacency(filmsByUser, userId).remove(filmId);
+            notifyListeners(userId, filmId);
+        }
+    }
+
+    /**
+     * Drops all likes of a deleted user
+     */
+    public void removeUser(long userId) {
+        Adjacency films = detach(filmsByUser, userId);
+        if (films == null) {
+            return;
+        }
+        for (long filmId : films.ids()) {
+            adjacency(usersByFilm, filmId).remove(userId);
+            notifyListeners(userId, filmId);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLikeChanged(ChangeEvents.LikeChanged event) {
+        if (event.added()) {
+            addLike(event.userId(), event.filmId());
+        } else {
+            removeLike(event.userId(), event.filmId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilmDeleted(ChangeEvents.FilmDeleted event) {
+        removeFilm(event.filmId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(ChangeEvents.UserDeleted event) {
+        removeUser(event.userId());
+    }
+
+    private Adjacency adjacency(LongObjectMap<Adjacency> adjacencies, long id) {
+        lock.readLock().lock();
+        try {
+            return adjacencies.getOrDefault(id, Adjacency.NONE);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Adjacency adjacencyToChange(LongObjectMap<Adjacency> adjacencies, long id) {
+        Adjacency adjacency = adjacency(adjacencies, id);
+        if (adjacency != Adjacency.NONE) {
+            return adjacency;
+        }
+        lock.writeLock().lock();
+        try {
+            return adjacencies.computeIfAbsent(id, key -> new Adjacency(new ChunkedLongSet()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Adjacency detach(LongObjectMap<Adjacency> adjacencies, long id) {
+        lock.writeLock().lock();
+        try {
+            return adjacencies.remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        LongObjectMap<LongBuffer> films = new LongObjectMap<>();
+        LongObjectMap<LongBuffer> users = new LongObjectMap<>();
+        jdbc.query(LOAD_QUERY, rs -> {
+            long filmId = rs.getLong("film_id");
+            long userId = rs.getLong("user_id");
+            films.computeIfAbsent(userId, id -> new LongBuffer()).add(filmId);
+            users.computeIfAbsent(filmId, id -> new LongBuffer()).add(userId);
+        });
+        lock.writeLock().lock();
+        try {
+            films.forEach((userId, buffer) -> filmsByUser.put(userId, toAdjacency(buffer)));
+            users.forEach((filmId, buffer) -> usersByFilm.put(filmId, toAdjacency(buffer)));
+            log.info("Like graph loaded: {} users, {} films", filmsByUser.size(), usersByFilm.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static Adjacency toAdjacency(LongBuffer buffer) {
+        return new Adjacency(ChunkedLongSet.of(buffer.toSortedArray()));
+    }
+
+    private void notifyListeners(long userId, long filmId) {
+        for (LikeListener listener : listeners) {
+            listener.likeChanged(userId, filmId);
+        }
+    }
+
+    /**
+     * Ids adjacent to one user or film. The version counts the changes, so derived data can tell it is stale.
+     * A monitor is enough here: nothing inside blocks, and the longest hold is a shift within one chunk.
+     */
+    private static final class Adjacency {
+        static final Adjacency NONE = new Adjacency(new ChunkedLongSet());
+
+        private final ChunkedLongSet ids;
+        private long version;
+
+        Adjacency(ChunkedLongSet ids) {
+            this.ids = ids;
+        }
+
+        synchronized long[] ids() {
+            return ids.toArray();
+        }
+
+        synchronized int size() {
+            return ids.size();
+        }
+
+        synchronized long version() {
+            return version;
+        }
+
+        synchronized boolean add(long id) {
+            if (!ids.add(id)) {
+                return false;
+            }
+            version++;
+            return true;
+        }
+
+        synchronized boolean remove(long id) {
+            if (!ids.remove(id)) {
+                return false;
+            }
+            version++;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.storage.graph;
+
+import java.util.Arrays;
+
+/**
+ * Growable buffer of unsorted longs, used to gather adjacencies while a graph loads
+ */
+final class LongBuffer {
+    private long[] values = new long[4];
+    private int size;
+
+    void add(long value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * The buffered values ascending and without duplicates, the buffer is reordered in place
+     */
+    long[] toSortedArray() {
+        return SortedLongArrays.of(values, size);
+    }
+}
@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.storage.id;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out ids from database sequences in blocks.
+ * One NEXT VALUE call reserves {@link #BLOCK_SIZE} ids, the rest are served from memory.
+ */
+@Component
+@RequiredArgsConstructor
+public class SequenceIdAllocator {
+    /**
+     * Has to match INCREMENT BY of the *_id_seq sequences in schema.sql
+     */
+    public static final int BLOCK_SIZE = 50;
+
+    public static final String FILM_SEQUENCE = "film_id_seq";
+    public static final String USER_SEQUENCE = "user_id_seq";
+    public static final String DIRECTOR_SEQUENCE = "director_id_seq";
+    public static final String EVENT_SEQUENCE = "event_id_seq";
+
+    private final JdbcTemplate jdbc;
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+    /**
+     * Allocates the next id of a sequence
+     *
+     * @param sequence - sequence name
+     * @return long
+     */
+    public long nextId(String sequence) {
+        return blocks.computeIfAbsent(sequence, Block::new).next();
+    }
+
+    /**
+     * Allocates count ids of a sequence in one round trip by reserving whole blocks, for bulk inserts.
+     * Ids left over in the last block are skipped.
+     *
+     * @param sequence - sequence name
+     * @param count    - number of ids
+     * @return ids in ascending order within each block
+     */
+    public long[] nextIds(String sequence, int count) {
+        long[] ids = new long[count];
+        if (count == 0) {
+            return ids;
+        }
+        int blockCount = (count + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        List<Long> starts = jdbc.queryForList(
+                "SELECT NEXT VALUE FOR " + sequence + " FROM SYSTEM_RANGE(1, ?)", Long.class, blockCount);
+        int i = 0;
+        for (long start : starts) {
+            for (long id = start; id < start + BLOCK_SIZE && i < count; id++) {
+                ids[i++] = id;
+            }
+        }
+        return ids;
+    }
+
+    private final class Block {
+        private final String nextValueQuery;
+        // not a monitor: the refill queries the database and must not pin a virtual thread
+        private final Lock lock = new ReentrantLock();
+        private long next;
+        private long limit;
+
+        private Block(String sequence) {
+            this.nextValueQuery = "SELECT NEXT VALUE FOR " + sequence;
+        }
+
+        private long next() {
+            lock.lock();
+            try {
+                if (next == limit) {
+                    next = jdbc.queryForObject(nextValueQuery, Long.class);
+                    limit = next + BLOCK_SIZE;
+                }
+                return next++;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
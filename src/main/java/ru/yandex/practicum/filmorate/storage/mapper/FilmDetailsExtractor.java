@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.storage.mapper;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Assembles films with their genres and directors from the rows of films joined to both,
+ * genres come out ordered by id
+ */
+@Component
+@RequiredArgsConstructor
+public class FilmDetailsExtractor implements ResultSetExtractor<Optional<Film>> {
+    private final FilmRowMapper filmRowMapper;
+
+    @Override
+    public Optional<Film> extractData(ResultSet rs) throws SQLException {
+        List<Film> films = new ArrayList<>(1);
+        extractEach(rs, films::add);
+        return films.stream().findFirst();
+    }
+
+    /**
+     * Assembles films one after another from rows ordered by film id, handing each to the action
+     * as soon as its last row has been read
+     */
+    public void extractEach(ResultSet rs, Consumer<Film> action) throws SQLException {
+        Film film = null;
+        TreeMap<Long, Genre> genres = new TreeMap<>();
+        Set<Director> directors = new LinkedHashSet<>();
+        while (rs.next()) {
+            long filmId = rs.getLong("id");
+            if (film == null || film.getId() != filmId) {
+                if (film != null) {
+                    action.accept(complete(film, genres, directors));
+                    genres = new TreeMap<>();
+                    directors = new LinkedHashSet<>();
+                }
+                film = filmRowMapper.mapRow(rs, 0);
+            }
+            long genreId = rs.getLong("genre_id");
+            if (!rs.wasNull()) {
+                genres.putIfAbsent(genreId, new Genre(genreId, rs.getString("genre_name")));
+            }
+            long directorId = rs.getLong("director_id");
+            if (!rs.wasNull()) {
+                directors.add(new Director(directorId, rs.getString("director_name")));
+            }
+        }
+        if (film != null) {
+            action.accept(complete(film, genres, directors));
+        }
+    }
+
+    private static Film complete(Film film, TreeMap<Long, Genre> genres, Set<Director> directors) {
+        film.setGenres(new LinkedHashSet<>(genres.values()));
+        film.setDirectors(directors);
+        return film;
+    }
+}
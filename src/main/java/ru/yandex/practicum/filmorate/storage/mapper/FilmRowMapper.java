@@ -5,6 +5,7 @@ import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.MPA;
+import ru.yandex.practicum.filmorate.storage.film.LikeCounter;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -12,6 +13,7 @@ import java.sql.SQLException;
 @Component
 @RequiredArgsConstructor
 public class FilmRowMapper implements RowMapper<Film> {
+    private final LikeCounter likeCounter;
 
     @Override
     public Film mapRow(ResultSet rs, int rowNum) throws SQLException {
@@ -21,7 +23,7 @@ public class FilmRowMapper implements RowMapper<Film> {
         film.setDescription(rs.getString("description"));
         film.setDuration(rs.getInt("duration"));
         film.setReleaseDate(rs.getDate("release_date").toLocalDate());
-        film.setLikeCount(rs.getInt("like_count"));
+        film.setLikeCount((int) (rs.getInt("like_count") + likeCounter.pending(film.getId())));
         film.setMpa(MPA.builder().id(rs.getLong("mpa_id"))
                 .name(rs.getString("mpa_name")).build());
         return film;
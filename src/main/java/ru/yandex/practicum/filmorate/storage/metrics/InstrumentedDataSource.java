@@ -0,0 +1,149 @@
+package ru.yandex.practicum.filmorate.storage.metrics;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Decorates a DataSource so every connection, statement and result set it hands out reports to
+ * {@link JdbcMetrics}. Sits underneath JdbcTemplate, so statements are measured however they are issued.
+ * unwrap and isWrapperFor reach the pool, so pool metrics and health checks still see it.
+ * The caller name is resolved once per connection, and a transaction holds one connection throughout,
+ * so its statements are named after the method it began in. Only connections taken outside application
+ * beans, which are named "other", resolve the name again for each statement.
+ */
+public final class InstrumentedDataSource {
+
+    private InstrumentedDataSource() {
+    }
+
+    public static DataSource wrap(DataSource dataSource, JdbcMetrics metrics) {
+        return proxy(DataSource.class, (proxy, method, args) -> {
+            if (!method.getName().equals("getConnection")) {
+                return invoke(dataSource, method, args);
+            }
+            long start = System.nanoTime();
+            Connection connection = (Connection) invoke(dataSource, method, args);
+            long waited = System.nanoTime() - start;
+            String name = JdbcMetrics.callerName();
+            metrics.recordConnectionWait(name, waited);
+            return connection(connection, name, metrics);
+        });
+    }
+
+    private static Connection connection(Connection connection, String name, JdbcMetrics metrics) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            return switch (method.getName()) {
+                case "createStatement" -> statementMetrics(name, metrics).wrap(Statement.class, (Statement) result);
+                case "prepareStatement" ->
+                        statementMetrics(name, metrics).wrap(PreparedStatement.class, (PreparedStatement) result);
+                case "prepareCall" ->
+                        statementMetrics(name, metrics).wrap(CallableStatement.class, (CallableStatement) result);
+                default -> result;
+            };
+        });
+    }
+
+    private static StatementMetrics statementMetrics(String connectionName, JdbcMetrics metrics) {
+        return new StatementMetrics(metrics,
+                JdbcMetrics.OTHER.equals(connectionName) ? JdbcMetrics.callerName() : connectionName);
+    }
+
+    /**
+     * Measures one statement from its first execution until it is closed
+     */
+    private static final class StatementMetrics {
+        private final JdbcMetrics metrics;
+        private final String name;
+        private long start;
+        private long rows;
+        private boolean failed;
+
+        private StatementMetrics(JdbcMetrics metrics, String name) {
+            this.metrics = metrics;
+            this.name = name;
+        }
+
+        private <S extends Statement> S wrap(Class<S> type, S statement) {
+            return proxy(type, (proxy, method, args) -> {
+                String methodName = method.getName();
+                if (methodName.equals("close")) {
+                    finish();
+                    return invoke(statement, method, args);
+                }
+                if (!methodName.startsWith("execute")) {
+                    Object result = invoke(statement, method, args);
+                    return methodName.equals("getResultSet") && result != null ? resultSet((ResultSet) result) : result;
+                }
+                if (start == 0) {
+                    start = System.nanoTime();
+                }
+                Object result;
+                try {
+                    result = invoke(statement, method, args);
+                } catch (Throwable e) {
+                    failed = true;
+                    throw e;
+                }
+                if (result instanceof ResultSet resultSet) {
+                    return resultSet(resultSet);
+                }
+                countUpdated(result);
+                return result;
+            });
+        }
+
+        private void countUpdated(Object result) {
+            if (result instanceof Integer count) {
+                rows += count;
+            } else if (result instanceof Long count) {
+                rows += count;
+            } else if (result instanceof int[] counts) {
+                for (int count : counts) {
+                    rows += Math.max(count, 0);
+                }
+            } else if (result instanceof long[] counts) {
+                for (long count : counts) {
+                    rows += Math.max(count, 0);
+                }
+            }
+        }
+
+        private ResultSet resultSet(ResultSet resultSet) {
+            return proxy(ResultSet.class, (proxy, method, args) -> {
+                Object result = invoke(resultSet, method, args);
+                if (result == Boolean.TRUE && method.getName().equals("next")) {
+                    rows++;
+                }
+                return result;
+            });
+        }
+
+        private void finish() {
+            if (start != 0) {
+                metrics.recordStatement(name, System.nanoTime() - start, rows, failed);
+                start = 0;
+            }
+        }
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package ru.yandex.practicum.filmorate.storage.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-statement JDBC meters, tagged with the logical name of the method that issued the statement:
+ * <ul>
+ *     <li>filmorate.jdbc.statement - timer from execution until the statement is closed, reading rows included</li>
+ *     <li>filmorate.jdbc.rows - rows read by a query or written by an update</li>
+ *     <li>filmorate.jdbc.connection.wait - time spent getting a connection from the pool</li>
+ * </ul>
+ * The name comes from the first application bean on the call stack: FilmDbStorage.getByIds becomes
+ * film.getByIds, MPAStorage.getAll becomes mpa.getAll. Statements issued from anywhere else are "other".
+ * Finding it walks the stack, so {@link InstrumentedDataSource} does it once per connection, not per statement.
+ */
+public class JdbcMetrics {
+    public static final String STATEMENT_TIMER = "filmorate.jdbc.statement";
+    public static final String ROWS_SUMMARY = "filmorate.jdbc.rows";
+    public static final String CONNECTION_WAIT_TIMER = "filmorate.jdbc.connection.wait";
+    public static final String OTHER = "other";
+
+    private static final String BASE_PACKAGE = "ru.yandex.practicum.filmorate";
+    private static final StackWalker WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+    // "" for classes that are not application beans; configuration classes only run startup work
+    private static final ClassValue<String> PREFIXES = new ClassValue<>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            Class<?> userClass = ClassUtils.getUserClass(type);
+            if (!userClass.getName().startsWith(BASE_PACKAGE)
+                    || !AnnotatedElementUtils.hasAnnotation(userClass, Component.class)
+                    || AnnotatedElementUtils.hasAnnotation(userClass, Configuration.class)) {
+                return "";
+            }
+            return decapitalize(userClass.getSimpleName().replaceFirst("(Db)?Storage$", ""));
+        }
+    };
+
+    private final ObjectProvider<MeterRegistry> registryProvider;
+    private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+    private MeterRegistry registry;
+
+    private record Meters(Timer success, Timer error, DistributionSummary rows, Timer connectionWait) {
+    }
+
+    public JdbcMetrics(ObjectProvider<MeterRegistry> registryProvider) {
+        this.registryProvider = registryProvider;
+    }
+
+    /**
+     * Logical name of the application method on the current call stack
+     */
+    public static String callerName() {
+        return WALKER.walk(frames -> frames
+                .map(frame -> {
+                    String prefix = PREFIXES.get(frame.getDeclaringClass());
+                    return prefix.isEmpty() ? null : prefix + "." + methodName(frame.getMethodName());
+                })
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse(OTHER));
+    }
+
+    public void recordStatement(String name, long nanos, long rows, boolean failed) {
+        Meters named = meters(name);
+        (failed ? named.error() : named.success()).record(nanos, TimeUnit.NANOSECONDS);
+        named.rows().record(rows);
+    }
+
+    public void recordConnectionWait(String name, long nanos) {
+        meters(name).connectionWait().record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Meters meters(String name) {
+        Meters named = meters.get(name);
+        return named != null ? named : meters.computeIfAbsent(name, this::register);
+    }
+
+    private Meters register(String name) {
+        if (registry == null) {
+            registry = registryProvider.getObject();
+        }
+        return new Meters(statementTimer(name, "success"), statementTimer(name, "error"),
+                DistributionSummary.builder(ROWS_SUMMARY)
+                        .description("Rows read or written by a statement")
+                        .tag("name", name)
+                        .register(registry),
+                Timer.builder(CONNECTION_WAIT_TIMER)
+                        .description("Time spent waiting for a pooled connection")
+                        .tag("name", name)
+                        .register(registry));
+    }
+
+    private Timer statementTimer(String name, String outcome) {
+        return Timer.builder(STATEMENT_TIMER)
+                .description("Statement execution including reading its rows")
+                .tag("name", name)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+    }
+
+    // FilmDbStorage -> film, MPAStorage -> mpa, LikeCounter -> likeCounter
+    private static String decapitalize(String name) {
+        int upper = 0;
+        while (upper < name.length() && Character.isUpperCase(name.charAt(upper))) {
+            upper++;
+        }
+        int lower = upper > 1 && upper < name.length() ? upper - 1 : Math.max(upper, 1);
+        return name.substring(0, lower).toLowerCase() + name.substring(lower);
+    }
+
+    // lambda$createAll$2 -> createAll
+    private static String methodName(String name) {
+        if (name.startsWith("lambda$")) {
+            int end = name.indexOf('$', 7);
+            return end > 7 ? name.substring(7, end) : name;
+        }
+        return name;
+    }
+}
@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.storage.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the application DataSource in {@link InstrumentedDataSource}, turned off with filmorate.jdbc.metrics.enabled=false
+ */
+@Configuration
+@ConditionalOnProperty(name = "filmorate.jdbc.metrics.enabled", matchIfMissing = true)
+public class JdbcMetricsConfiguration {
+
+    @Bean
+    static BeanPostProcessor instrumentedDataSource(ObjectProvider<MeterRegistry> registry) {
+        JdbcMetrics metrics = new JdbcMetrics(registry);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource ? InstrumentedDataSource.wrap(dataSource, metrics) : bean;
+            }
+        };
+    }
+}
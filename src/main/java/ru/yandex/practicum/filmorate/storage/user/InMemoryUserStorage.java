@@ -2,33 +2,55 @@ package ru.yandex.practicum.filmorate.storage.user;
 
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
-import ru.yandex.practicum.filmorate.exception.UserAlreadyExistException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.graph.LongObjectMap;
+import ru.yandex.practicum.filmorate.storage.graph.SortedLongArrays;
 
 import java.util.*;
-import java.util.stream.Collectors;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Concurrent in-memory user storage. Friend ids are kept in sorted long arrays behind a {@link LongObjectMap},
+ * replaced rather than mutated, so common friends are a linear merge of two arrays.
+ */
 @Component
 public class InMemoryUserStorage implements UserStorage {
     /**
      * Users Map
      */
-    private final Map<Long, User> users = new HashMap<>();
-    private final Map<Long, List<Long>> friendships = new HashMap<>();
+    private final Map<Long, User> users = new ConcurrentHashMap<>();
+    private final LongObjectMap<long[]> friendships = new LongObjectMap<>();
+    private final ReadWriteLock friendshipsLock = new ReentrantReadWriteLock();
+    private final AtomicLong lastId = new AtomicLong();
 
 
     @Override
-    public Optional<User> getById(long id) throws NotFoundException {
-        User user = users.get(id);
-        if (user == null) {
-            throw new NotFoundException("Пользователь с ID - %d не найден.".formatted(id));
-        }
-        return Optional.of(user);
+    public Optional<User> getById(long id) {
+        return Optional.ofNullable(users.get(id));
+    }
+
+    @Override
+    public List<User> getByIds(List<Long> ids) {
+        return ids.stream().map(users::get).filter(Objects::nonNull).toList();
     }
 
     @Override
     public List<User> getAll() {
-        return users.values().stream().toList();
+        return List.copyOf(users.values());
+    }
+
+    @Override
+    public void forEach(Consumer<User> action) {
+        users.values().stream().sorted(Comparator.comparingLong(User::getId)).forEach(action);
+    }
+
+    @Override
+    public long nextId() {
+        return lastId.incrementAndGet();
     }
 
     @Override
@@ -39,14 +61,28 @@ public class InMemoryUserStorage implements UserStorage {
 
     @Override
     public User update(User newUser) {
-        User oldUser = users.get(newUser.getId());
-        users.put(oldUser.getId(), newUser);
+        if (users.replace(newUser.getId(), newUser) == null) {
+            throw new NotFoundException("Пользователь с ID - %d не найден.".formatted(newUser.getId()));
+        }
         return newUser;
     }
 
     @Override
     public void deleteById(Long id) {
         users.remove(id);
+        friendshipsLock.writeLock().lock();
+        try {
+            friendships.remove(id);
+            List<Long> befriended = new ArrayList<>();
+            friendships.forEach((userId, friends) -> {
+                if (SortedLongArrays.contains(friends, id)) {
+                    befriended.add(userId);
+                }
+            });
+            befriended.forEach(userId -> friendships.put(userId, SortedLongArrays.remove(friendships.get(userId), id)));
+        } finally {
+            friendshipsLock.writeLock().unlock();
+        }
     }
 
     @Override
@@ -54,52 +90,54 @@ public class InMemoryUserStorage implements UserStorage {
         if (!users.containsKey(userId) || !users.containsKey(friendId)) {
             throw new NotFoundException("Один из пользователей не найден.");
         }
-
-
-        if (friendships.containsKey(userId)) {
-            List<Long> friendList = friendships.get(userId);
-            if (friendList.contains(friendId)) {
-                throw new UserAlreadyExistException("The user with id %d is already in your friends!".formatted(friendId));
-            }
-            friendList.add(friendId);
+        friendshipsLock.writeLock().lock();
+        try {
+            friendships.put(userId, SortedLongArrays.insert(friendships.get(userId), friendId));
+        } finally {
+            friendshipsLock.writeLock().unlock();
         }
-
-        List<Long> friendsList = new ArrayList<>();
-        friendsList.add(friendId);
-        friendships.put(userId, friendsList);
-
     }
 
     @Override
     public List<User> getFriends(Long userId) {
-        return friendships.get(userId).stream().map(
-                friendId -> getById(friendId).get()
-        ).collect(Collectors.toList());
+        return toUsers(friendIds(userId));
     }
 
     @Override
     public void removeFriend(Long userId, Long friendId) {
-        List<Long> userFriends = friendships.get(userId);
-        if (userFriends != null) {
-            if (!userFriends.contains(friendId)) {
-                throw new NotFoundException("User with id %d is not in your friends".formatted(friendId));
+        friendshipsLock.writeLock().lock();
+        try {
+            long[] friends = friendships.get(userId);
+            if (friends != null) {
+                friendships.put(userId, SortedLongArrays.remove(friends, friendId));
             }
-            userFriends.remove(friendId);
+        } finally {
+            friendshipsLock.writeLock().unlock();
         }
     }
 
     @Override
     public List<User> getCommonFriends(Long userId, Long friendId) {
-        List<Long> userFriends = friendships.getOrDefault(userId, Collections.emptyList());
-        List<Long> friendFriends = friendships.getOrDefault(friendId, Collections.emptyList());
-
+        return toUsers(SortedLongArrays.intersection(friendIds(userId), friendIds(friendId)));
+    }
 
-        return userFriends.stream()
-                .filter(friendFriends::contains)
-                .map(this::getById)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.toList());
+    private long[] friendIds(long userId) {
+        friendshipsLock.readLock().lock();
+        try {
+            return friendships.getOrDefault(userId, SortedLongArrays.EMPTY);
+        } finally {
+            friendshipsLock.readLock().unlock();
+        }
     }
 
+    private List<User> toUsers(long[] ids) {
+        List<User> result = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            User user = users.get(id);
+            if (user != null) {
+                result.add(user);
+            }
+        }
+        return result;
+    }
 }
@@ -1,15 +1,27 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Primary;
 import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.ChangeEvents;
+import ru.yandex.practicum.filmorate.storage.KeysetPages;
+import ru.yandex.practicum.filmorate.storage.SqlBatches;
+import ru.yandex.practicum.filmorate.storage.graph.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.id.SequenceIdAllocator;
 import ru.yandex.practicum.filmorate.storage.mapper.UserRowMapper;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Repository
 @Primary
@@ -17,6 +29,9 @@ import java.util.Optional;
 public class UserDbStorage implements UserStorage {
     private final JdbcTemplate jdbc;
     private final UserRowMapper mapper;
+    private final SequenceIdAllocator idAllocator;
+    private final FriendGraph friendGraph;
+    private final ApplicationEventPublisher events;
 
     @Override
     public Optional<User> getById(long id) {
@@ -29,12 +44,34 @@ public class UserDbStorage implements UserStorage {
         }
     }
 
+    @Override
+    public List<User> getByIds(List<Long> ids) {
+        Map<Long, User> users = new HashMap<>();
+        for (List<Long> chunk : SqlBatches.chunks(ids)) {
+            String findUsersByIdsQuery = "SELECT * FROM users WHERE id IN (" +
+                    SqlBatches.placeholders(chunk.size()) + ")";
+            jdbc.query(findUsersByIdsQuery, mapper, chunk.toArray()).forEach(user -> users.put(user.getId(), user));
+        }
+        return ids.stream().map(users::get).filter(Objects::nonNull).toList();
+    }
+
     @Override
     public List<User> getAll() {
         String findAllUsersQuery = "SELECT * FROM users";
         return jdbc.query(findAllUsersQuery, mapper);
     }
 
+    @Override
+    public void forEach(Consumer<User> action) {
+        KeysetPages.forEach((afterId, limit) -> jdbc.query("SELECT * FROM users WHERE id > ? ORDER BY id LIMIT ?",
+                mapper, afterId, limit), User::getId, action);
+    }
+
+    @Override
+    public long nextId() {
+        return idAllocator.nextId(SequenceIdAllocator.USER_SEQUENCE);
+    }
+
     @Override
     public User create(User user) {
         String insertUserQuery = "INSERT INTO users(id, email, login, name, password, birthday)" +
@@ -64,8 +101,15 @@ public class UserDbStorage implements UserStorage {
         return newUser;
     }
 
+    /**
+     * Deletes the user, their likes and friendships go with them by cascade. The liked films are read
+     * in the same transaction, so their like counts can be taken down by the same likes that were deleted.
+     */
     @Override
+    @Transactional
     public void deleteById(Long id) {
+        String likedFilmsQuery = "SELECT film_id FROM film_likes WHERE user_id = ?";
+        List<Long> likedFilmIds = jdbc.queryForList(likedFilmsQuery, Long.class, id);
         String deleteUserQuery = "DELETE FROM users WHERE id = ?";
         int rowsDeleted = jdbc.update(deleteUserQuery, id);
 
@@ -73,6 +117,7 @@ public class UserDbStorage implements UserStorage {
             throw new DataAccessException("User with ID " + id + " not found.") {
             };
         }
+        events.publishEvent(new ChangeEvents.UserDeleted(id, likedFilmIds));
     }
 
     public void addFriendship(Long userId, Long friendId) {
@@ -83,16 +128,15 @@ public class UserDbStorage implements UserStorage {
             String insertFriendshipQuery = "INSERT INTO user_friendships (user1_id, user2_id) VALUES (?, ?)";
             jdbc.update(insertFriendshipQuery, userId, friendId);
         }
+        events.publishEvent(new ChangeEvents.FriendshipChanged(userId, friendId, true));
     }
 
+    /**
+     * Intersects the friend lists held by {@link FriendGraph}, then loads only the common friends, in id order
+     */
+    @Override
     public List<User> getCommonFriends(Long userId, Long friendId) {
-        String getCommonFriendshipQuery = "SELECT * FROM USERS u \n" +
-                "WHERE u.ID IN(\n" +
-                "SELECT uf1.user2_id AS common_friend_id\n" +
-                "FROM user_friendships uf1\n" +
-                "JOIN user_friendships uf2 ON uf1.USER2_ID = uf2.USER2_ID\n" +
-                "WHERE uf1.USER1_ID = ? AND uf2.USER1_ID = ?)";
-        return jdbc.query(getCommonFriendshipQuery, mapper, userId, friendId);
+        return getByIds(Arrays.stream(friendGraph.getCommonFriends(userId, friendId)).boxed().toList());
     }
 
     @Override
@@ -109,5 +153,6 @@ public class UserDbStorage implements UserStorage {
         String deleteFriendshipQuery =
                 "DELETE FROM user_friendships WHERE user1_id = ? AND user2_id = ?";
         jdbc.update(deleteFriendshipQuery, userId, friendId);
+        events.publishEvent(new ChangeEvents.FriendshipChanged(userId, friendId, false));
     }
 }
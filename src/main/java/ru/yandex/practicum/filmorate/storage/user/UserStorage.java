@@ -4,6 +4,7 @@ import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 
 public interface UserStorage {
@@ -13,11 +14,26 @@ public interface UserStorage {
      */
     Optional<User> getById(long id);
 
+    /**
+     * get users by ids in storage, in the order of the ids
+     */
+    List<User> getByIds(List<Long> ids);
+
     /**
      * get all users in storage
      */
     List<User> getAll();
 
+    /**
+     * pass every user to the action in id order, without loading them all at once
+     */
+    void forEach(Consumer<User> action);
+
+    /**
+     * allocate an id for a new user
+     */
+    long nextId();
+
     /**
      * create a user in storage
      */
@@ -92,10 +92,14 @@ CREATE TABLE  IF NOT EXISTS reviews (
     is_positive BOOLEAN NOT NULL,
     user_id BIGINT NOT NULL,
     film_id BIGINT NOT NULL,
+    useful BIGINT NOT NULL DEFAULT 0,
     CONSTRAINT fk_film_reviews FOREIGN KEY (film_id) REFERENCES films (id) ON DELETE CASCADE,
     CONSTRAINT fk_user_reviews FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
 );
 
+CREATE INDEX IF NOT EXISTS idx_reviews_useful ON reviews (useful DESC);
+CREATE INDEX IF NOT EXISTS idx_reviews_film_useful ON reviews (film_id, useful DESC);
+
 -- Review useful rating
 CREATE TABLE  IF NOT EXISTS review_ratings (
     review_id BIGINT NOT NULL,
@@ -115,4 +119,22 @@ CREATE TABLE IF NOT EXISTS events (
     operation VARCHAR(20) NOT NULL,
     entity_id BIGINT NOT NULL,
     CONSTRAINT fk_user_events FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
-);
\ No newline at end of file
+);
+
+-- Feed reads and keyset pagination by (timestamp, id) within a user
+CREATE INDEX IF NOT EXISTS idx_events_user_timestamp ON events (user_id, timestamp, id);
+
+-- Secondary indexes, version 1
+-- Liked films of a user (recommendations, common films)
+CREATE INDEX IF NOT EXISTS idx_film_likes_user ON film_likes (user_id, film_id);
+-- Films of a genre and of a director
+CREATE INDEX IF NOT EXISTS idx_film_genres_genre ON film_genres (genre_id, film_id);
+CREATE INDEX IF NOT EXISTS idx_film_directors_director ON film_directors (director_id, film_id);
+-- Reverse side of a friendship
+CREATE INDEX IF NOT EXISTS idx_user_friendships_user2 ON user_friendships (user2_id, user1_id);
+
+-- Id sequences, INCREMENT BY is the block size reserved by SequenceIdAllocator
+CREATE SEQUENCE IF NOT EXISTS film_id_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS user_id_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS director_id_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS event_id_seq START WITH 1 INCREMENT BY 50;
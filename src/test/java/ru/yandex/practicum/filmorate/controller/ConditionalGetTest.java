@@ -0,0 +1,110 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:conditional-get",
+        "logging.level.org.zalando.logbook=WARN"})
+@DirtiesContext
+class ConditionalGetTest {
+    private static final String FILM = """
+            {"name":"%s","description":"Description","releaseDate":"2000-01-01","duration":100,"mpa":{"id":1}}""";
+
+    @LocalServerPort
+    private int port;
+
+    private HttpClient client;
+
+    @BeforeEach
+    void setUp() {
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+    }
+
+    @Test
+    public void testUnchangedReferenceDataIsNotResent() throws Exception {
+        HttpResponse<String> genres = get("/genres", null);
+        String etag = genres.headers().firstValue("ETag").orElseThrow();
+
+        HttpResponse<String> again = get("/genres", etag);
+
+        assertThat(genres.statusCode()).isEqualTo(200);
+        assertThat(again.statusCode()).isEqualTo(304);
+        assertThat(again.body()).isEmpty();
+        assertThat(get("/mpa/1", etag).statusCode()).isEqualTo(304);
+    }
+
+    @Test
+    public void testFilmTagsChangeWithTheFilmAndItsLikes() throws Exception {
+        long filmId = id(send("POST", "/films", FILM.formatted("Film")));
+        long userId = id(send("POST", "/users",
+                "{\"email\":\"etag@example.com\",\"login\":\"etag\",\"birthday\":\"1990-01-01\"}"));
+        String filmTag = get("/films/" + filmId, null).headers().firstValue("ETag").orElseThrow();
+        String popularTag = get("/films/popular", null).headers().firstValue("ETag").orElseThrow();
+
+        assertThat(get("/films/" + filmId, filmTag).statusCode()).isEqualTo(304);
+        assertThat(get("/films/popular?count=3", popularTag).statusCode()).isEqualTo(304);
+
+        send("PUT", "/films/" + filmId + "/like/" + userId, "");
+
+        HttpResponse<String> liked = get("/films/" + filmId, filmTag);
+        assertThat(liked.statusCode()).isEqualTo(200);
+        assertThat(liked.body()).contains("\"likeCount\":1");
+        assertThat(get("/films/popular", popularTag).statusCode()).isEqualTo(200);
+
+        String likedTag = liked.headers().firstValue("ETag").orElseThrow();
+        send("PUT", "/films", FILM.formatted("Renamed").replace("{\"name\"", "{\"id\":" + filmId + ",\"name\""));
+
+        HttpResponse<String> renamed = get("/films/" + filmId, likedTag);
+        assertThat(renamed.statusCode()).isEqualTo(200);
+        assertThat(renamed.body()).contains("Renamed");
+    }
+
+    @Test
+    public void testPopularCountMustBePositive() throws Exception {
+        assertThat(get("/films/popular?count=0", null).statusCode()).isEqualTo(400);
+        assertThat(get("/films/popular?count=-1", null).statusCode()).isEqualTo(400);
+        assertThat(get("/films/popular?count=1000000", null).statusCode()).isEqualTo(200);
+    }
+
+    private HttpResponse<String> get(String path, String etag) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri(path)).GET();
+        if (etag != null) {
+            request.header("If-None-Match", etag);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).isBetween(200, 201);
+        return response;
+    }
+
+    private static long id(HttpResponse<String> response) {
+        return Long.parseLong(response.body().replaceAll("^\\{\"id\":(\\d+).*", "$1"));
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
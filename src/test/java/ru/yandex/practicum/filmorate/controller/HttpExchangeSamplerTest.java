@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HttpExchangeSamplerTest {
+
+    @Test
+    public void testFirstMatchingPatternSetsTheRate() {
+        HttpExchangeSampler sampler = new HttpExchangeSampler(0.5,
+                List.of("/films/popular=0", "/films/**=1", "/users/*/friends/**=0.25"));
+
+        assertThat(sampler.rateFor("/films/popular")).isEqualTo(0.0);
+        assertThat(sampler.rateFor("/films/7/like/3")).isEqualTo(1.0);
+        assertThat(sampler.rateFor("/users/1/friends/common/2")).isEqualTo(0.25);
+        assertThat(sampler.rateFor("/genres")).isEqualTo(0.5);
+    }
+
+    @Test
+    public void testRequestsAreSampledAtTheirRate() {
+        HttpExchangeSampler sampler = new HttpExchangeSampler(0.1, List.of("/films/popular=0", "/films/**=1"));
+
+        assertThat(IntStream.range(0, 1000).filter(i -> sampler.sample("/films/popular")).count()).isZero();
+        assertThat(IntStream.range(0, 1000).filter(i -> sampler.sample("/films/1/like/2")).count()).isEqualTo(1000);
+        assertThat(IntStream.range(0, 10_000).filter(i -> sampler.sample("/genres")).count()).isBetween(700L, 1300L);
+    }
+
+    @Test
+    public void testInvalidRatesAreRejected() {
+        assertThatThrownBy(() -> new HttpExchangeSampler(1.5, List.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new HttpExchangeSampler(1.0, List.of("/films")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonBytesCacheTest {
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    public void testBodyIsReusedWhileItsTagIsCurrent() {
+        JsonBytesCache cache = new JsonBytesCache(new ObjectMapper(), 1024);
+
+        byte[] first = cache.get("film:1", "\"a-1\"", () -> load("one")).getBody();
+        byte[] second = cache.get("film:1", "\"a-1\"", () -> load("two")).getBody();
+        byte[] changed = cache.get("film:1", "\"a-2\"", () -> load("three")).getBody();
+
+        assertThat(second).isSameAs(first);
+        assertThat(new String(changed, StandardCharsets.UTF_8)).isEqualTo("[\"three\"]");
+        assertThat(cache.get("film:1", "\"a-2\"", () -> load("four")).getHeaders().getETag()).isEqualTo("\"a-2\"");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedBodiesAreEvictedOverTheByteLimit() {
+        // each body is ["xxxx"], 8 bytes
+        JsonBytesCache cache = new JsonBytesCache(new ObjectMapper(), 20);
+        cache.get("a", "1", () -> load("aaaa"));
+        cache.get("b", "1", () -> load("bbbb"));
+        cache.get("a", "1", () -> load("aaaa"));
+        cache.get("c", "1", () -> load("cccc"));
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.bytes()).isEqualTo(16);
+        cache.get("a", "1", () -> load("aaaa"));
+        assertThat(loads).hasValue(3);
+        cache.get("b", "1", () -> load("bbbb"));
+        assertThat(loads).hasValue(4);
+    }
+
+    private List<String> load(String value) {
+        loads.incrementAndGet();
+        return List.of(value);
+    }
+}
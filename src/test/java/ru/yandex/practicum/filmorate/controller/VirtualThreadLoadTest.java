@@ -0,0 +1,193 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sends many concurrent GET /films/popular and /users/{id}/friends requests while every connection a request
+ * takes from the pool first blocks inside the database for a while, and records how many requests are blocked
+ * there at once. With virtual threads off, Tomcat's few platform threads cap that number; with them on,
+ * server.tomcat.threads.max no longer applies and the blocked requests overlap far beyond it.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "server.tomcat.threads.max=" + VirtualThreadLoadTest.TOMCAT_THREADS,
+        "spring.datasource.hikari.maximum-pool-size=" + VirtualThreadLoadTest.CLIENTS,
+        "spring.datasource.hikari.minimum-idle=" + VirtualThreadLoadTest.TOMCAT_THREADS,
+        "logging.level.org.zalando.logbook=WARN"})
+@Import(VirtualThreadLoadTest.Config.class)
+class VirtualThreadLoadTest {
+    static final int TOMCAT_THREADS = 4;
+    static final int CLIENTS = 100;
+    private static final long HOLD_MS = 50;
+
+    private static final AtomicInteger blocked = new AtomicInteger();
+    private static final AtomicInteger peak = new AtomicInteger();
+    private static volatile boolean holding;
+
+    @TestConfiguration
+    static class Config {
+        /**
+         * Connections taken while a request is handled first run CALL HOLD, which blocks in {@link Hold#hold(long)}
+         */
+        @Bean
+        static BeanPostProcessor holdingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof DataSource dataSource)) {
+                        return bean;
+                    }
+                    try (Connection connection = dataSource.getConnection();
+                         Statement statement = connection.createStatement()) {
+                        statement.execute("CREATE ALIAS IF NOT EXISTS HOLD FOR '"
+                                + Hold.class.getName() + ".hold'");
+                    } catch (SQLException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    return new DelegatingDataSource(dataSource) {
+                        @Override
+                        public Connection getConnection() throws SQLException {
+                            Connection connection = super.getConnection();
+                            if (holding && RequestContextHolder.getRequestAttributes() != null) {
+                                try (Statement statement = connection.createStatement()) {
+                                    statement.execute("CALL HOLD(" + HOLD_MS + ")");
+                                }
+                            }
+                            return connection;
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+    /**
+     * Body of the HOLD database function: sleeps on the calling request thread and tracks the overlap.
+     * Public, as H2 calls it by reflection.
+     */
+    public static final class Hold {
+        private Hold() {
+        }
+
+        public static void hold(long millis) throws InterruptedException {
+            peak.accumulateAndGet(blocked.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(millis);
+            } finally {
+                blocked.decrementAndGet();
+            }
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = {
+            "spring.threads.virtual.enabled=true",
+            "spring.datasource.url=jdbc:h2:mem:virtual-threads-on"})
+    @DirtiesContext
+    class VirtualThreads {
+        @LocalServerPort
+        private int port;
+
+        @Test
+        public void testBlockingDatabaseWorkOverlapsFarBeyondTomcatThreads() throws Exception {
+            assertThat(peakBlockedRequests(port)).isGreaterThan(TOMCAT_THREADS * 5);
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = {
+            "spring.threads.virtual.enabled=false",
+            "spring.datasource.url=jdbc:h2:mem:virtual-threads-off"})
+    @DirtiesContext
+    class PlatformThreads {
+        @LocalServerPort
+        private int port;
+
+        @Test
+        public void testBlockingDatabaseWorkIsCappedByTomcatThreads() throws Exception {
+            assertThat(peakBlockedRequests(port)).isPositive().isLessThanOrEqualTo(TOMCAT_THREADS);
+        }
+    }
+
+    private static int peakBlockedRequests(int port) throws Exception {
+        try (HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build()) {
+            long userId = create(client, port, "/users",
+                    "{\"email\":\"load@example.com\",\"login\":\"load\",\"birthday\":\"1990-01-01\"}");
+            long friendId = create(client, port, "/users",
+                    "{\"email\":\"friend@example.com\",\"login\":\"friend\",\"birthday\":\"1990-01-01\"}");
+            long filmId = create(client, port, "/films", "{\"name\":\"Load\",\"description\":\"Load test film\","
+                    + "\"releaseDate\":\"2000-01-01\",\"duration\":100,\"mpa\":{\"id\":1}}");
+            put(client, port, "/users/" + userId + "/friends/" + friendId);
+            put(client, port, "/films/" + filmId + "/like/" + userId);
+
+            peak.set(0);
+            holding = true;
+            try {
+                List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+                for (int i = 0; i < CLIENTS; i++) {
+                    // a distinct count per request, so no popular list is served from the serialized body cache
+                    String path = i % 2 == 0 ? "/films/popular?count=" + (i + 1) : "/users/" + userId + "/friends";
+                    responses.add(client.sendAsync(HttpRequest.newBuilder(uri(port, path)).GET().build(),
+                            HttpResponse.BodyHandlers.ofString()));
+                }
+                for (CompletableFuture<HttpResponse<String>> response : responses) {
+                    assertThat(response.get().statusCode()).isEqualTo(200);
+                }
+            } finally {
+                holding = false;
+            }
+        }
+        return peak.get();
+    }
+
+    private static long create(HttpClient client, int port, String path, String body)
+            throws IOException, InterruptedException {
+        HttpResponse<String> created = client.send(HttpRequest.newBuilder(uri(port, path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(created.statusCode()).isEqualTo(201);
+        return Long.parseLong(created.body().replaceAll("^.*?\"id\":(\\d+).*", "$1"));
+    }
+
+    private static void put(HttpClient client, int port, String path) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri(port, path))
+                .PUT(HttpRequest.BodyPublishers.noBody())
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).isEqualTo(200);
+    }
+
+    private static URI uri(int port, String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MPA;
+import ru.yandex.practicum.filmorate.model.dto.FilmImportResult;
+import ru.yandex.practicum.filmorate.storage.DirectorStorage;
+import ru.yandex.practicum.filmorate.storage.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.MPAStorage;
+import ru.yandex.practicum.filmorate.storage.cache.FilmDetailsCache;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.film.LikeCounter;
+import ru.yandex.practicum.filmorate.storage.film.PopularityIndex;
+import ru.yandex.practicum.filmorate.storage.id.SequenceIdAllocator;
+import ru.yandex.practicum.filmorate.storage.mapper.DirectorRowMapper;
+import ru.yandex.practicum.filmorate.storage.mapper.FilmDetailsExtractor;
+import ru.yandex.practicum.filmorate.storage.mapper.FilmRowMapper;
+import ru.yandex.practicum.filmorate.storage.mapper.GenreRowMapper;
+import ru.yandex.practicum.filmorate.storage.mapper.MPARowMapper;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest(properties = "filmorate.films.import-chunk-size=2")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@ImportAutoConfiguration(ValidationAutoConfiguration.class)
+@Import({FilmImportService.class, FilmService.class, FilmDbStorage.class, FilmRowMapper.class, MPAStorage.class,
+        MPARowMapper.class, GenreStorage.class, GenreRowMapper.class, DirectorStorage.class, DirectorRowMapper.class,
+        SequenceIdAllocator.class, ReferenceDataCache.class, PopularityIndex.class,
+        FilmSearchIndex.class, FilmDetailsCache.class, FilmDetailsExtractor.class, LikeCounter.class,
+        ResourceVersions.class})
+@AutoConfigureTestDatabase
+class FilmImportServiceTest {
+    private final FilmImportService filmImportService;
+    private final FilmService filmService;
+    private final JdbcTemplate jdbc;
+    private final ReferenceDataCache referenceDataCache;
+
+    @Test
+    public void testImportWritesValidFilmsAndReportsInvalidOnes() {
+        jdbc.update("INSERT INTO directors (id, name) VALUES (9001, 'Director')");
+        referenceDataCache.getDirectors().invalidate();
+
+        FilmImportResult result = filmImportService.importFilms(List.of(
+                film("First", 1L, Set.of(new Genre(1L, null), new Genre(2L, null)), Set.of()),
+                film("", 1L, Set.of(), Set.of()),
+                film("Second", 2L, Set.of(), Set.of(new Director(9001L, null))),
+                film("Third", 99L, Set.of(), Set.of()),
+                film("Fourth", 3L, Set.of(new Genre(3L, null)), Set.of())
+        ).iterator());
+
+        assertThat(result.getImported()).isEqualTo(3);
+        assertThat(result.getRejectedCount()).isEqualTo(2);
+        assertThat(result.getRejected()).extracting(FilmImportResult.Rejection::getIndex).containsExactly(1, 3);
+
+        List<Long> ids = jdbc.queryForList("SELECT id FROM films WHERE name IN ('First', 'Second', 'Fourth') ORDER BY name",
+                Long.class);
+        assertThat(ids).hasSize(3);
+        Film first = filmService.getById(ids.get(0));
+        assertThat(first.getGenres()).extracting(Genre::getId).containsExactly(1L, 2L);
+        assertThat(first.getMpa().getId()).isEqualTo(1L);
+        assertThat(filmService.getById(ids.get(2)).getDirectors()).extracting(Director::getId).containsExactly(9001L);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM film_mpa", Integer.class)).isEqualTo(3);
+    }
+
+    private static Film film(String name, long mpaId, Set<Genre> genres, Set<Director> directors) {
+        return Film.builder()
+                .name(name)
+                .description("Description of " + name)
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .mpa(new MPA(mpaId, null))
+                .genres(genres)
+                .directors(directors)
+                .build();
+    }
+}
@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LookupScopeTest {
+    private final ParallelLookups parallelLookups = new ParallelLookups(true);
+
+    @AfterEach
+    void tearDown() {
+        parallelLookups.stop();
+    }
+
+    @Test
+    public void testLookupsRunConcurrently() {
+        // each lookup waits for the other, so run one after another they would both time out
+        CountDownLatch started = new CountDownLatch(2);
+        try (LookupScope scope = parallelLookups.open()) {
+            Supplier<Boolean> first = scope.fork(() -> awaitOther(started));
+            Supplier<Boolean> second = scope.fork(() -> awaitOther(started));
+            scope.join();
+
+            assertTrue(first.get());
+            assertTrue(second.get());
+        }
+    }
+
+    @Test
+    public void testFirstFailureCancelsOtherLookupsWithoutInterrupting() {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        NotFoundException thrown = assertThrows(NotFoundException.class, () -> {
+            try (LookupScope scope = parallelLookups.open()) {
+                scope.fork(() -> {
+                    interrupted.set(!await(release));
+                    finished.countDown();
+                    return null;
+                });
+                scope.fork(() -> {
+                    throw new NotFoundException("User with id = 1 not found");
+                });
+                scope.join();
+            }
+        });
+        release.countDown();
+
+        assertEquals("User with id = 1 not found", thrown.getMessage());
+        assertTrue(await(finished));
+        assertFalse(interrupted.get());
+    }
+
+    private static boolean awaitOther(CountDownLatch started) {
+        started.countDown();
+        return await(started);
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -7,13 +7,21 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.*;
 import ru.yandex.practicum.filmorate.model.dto.RequestUpdateReviewDto;
+import ru.yandex.practicum.filmorate.storage.EventBatchWriter;
 import ru.yandex.practicum.filmorate.storage.EventStorage;
 import ru.yandex.practicum.filmorate.storage.ReviewStorage;
 import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.film.LikeCounter;
+import ru.yandex.practicum.filmorate.storage.film.PopularityIndex;
+import ru.yandex.practicum.filmorate.storage.graph.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.id.SequenceIdAllocator;
 import ru.yandex.practicum.filmorate.storage.mapper.EventRowMapper;
+import ru.yandex.practicum.filmorate.storage.mapper.FilmDetailsExtractor;
 import ru.yandex.practicum.filmorate.storage.mapper.FilmRowMapper;
 import ru.yandex.practicum.filmorate.storage.mapper.ReviewMapper;
 import ru.yandex.practicum.filmorate.storage.mapper.UserRowMapper;
@@ -29,12 +37,15 @@ import static org.junit.jupiter.api.Assertions.*;
 @Import({ReviewService.class, ReviewMapper.class, ReviewStorage.class, UserDbStorage.class,
         FilmDbStorage.class, UserRowMapper.class,
         FilmRowMapper.class, EventStorage.class,
-        EventRowMapper.class})
+        EventRowMapper.class, EventBatchWriter.class, SequenceIdAllocator.class, PopularityIndex.class, FilmSearchIndex.class,
+        FilmDetailsExtractor.class, LikeCounter.class, ParallelLookups.class,
+        FriendGraph.class})
 @AutoConfigureTestDatabase
 class ReviewServiceTest {
     private final ReviewService reviewService;
     private final FilmDbStorage filmStorage;
     private final UserDbStorage userStorage;
+    private final JdbcTemplate jdbc;
 
     @BeforeEach
     void setUp() {
@@ -178,6 +189,28 @@ class ReviewServiceTest {
         assertTrue(updated.getUseful() < 0);
     }
 
+    @Test
+    void shouldSwitchLikeToDislike() {
+        Review review = reviewService.createReview(new Review(null, "Changed my mind", true, 1L, 2L, 0L));
+        reviewService.addLike(review.getReviewId(), 1L, true);
+        reviewService.addLike(review.getReviewId(), 1L, false);
+
+        Review updated = reviewService.findById(review.getReviewId());
+        assertEquals(-1L, updated.getUseful());
+    }
+
+    @Test
+    void shouldReconcileUseful() {
+        Review review = reviewService.createReview(new Review(null, "Reconcile me", true, 1L, 2L, 0L));
+        reviewService.addLike(review.getReviewId(), 1L, true);
+        jdbc.update("UPDATE reviews SET useful = 42 WHERE id = ?", review.getReviewId());
+
+        reviewService.reconcileUseful();
+
+        Review updated = reviewService.findById(review.getReviewId());
+        assertEquals(1L, updated.getUseful());
+    }
+
     @Test
     void shouldRemoveDislike() {
         Review review = reviewService.createReview(new Review(null, "Remove dislike", true, 1L, 2L, 0L));
@@ -6,14 +6,28 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.MPA;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.LikeService;
+import ru.yandex.practicum.filmorate.service.ParallelLookups;
+import ru.yandex.practicum.filmorate.service.RecommendationEngine;
+import ru.yandex.practicum.filmorate.service.ResourceVersions;
 import ru.yandex.practicum.filmorate.service.UserService;
 import ru.yandex.practicum.filmorate.storage.*;
+import ru.yandex.practicum.filmorate.storage.cache.FilmDetailsCache;
 import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.film.LikeCounter;
+import ru.yandex.practicum.filmorate.storage.film.PopularityIndex;
+import ru.yandex.practicum.filmorate.storage.graph.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.graph.LikeGraph;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.storage.id.SequenceIdAllocator;
 import ru.yandex.practicum.filmorate.storage.mapper.*;
 import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
 
@@ -27,7 +41,10 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 @Import({UserService.class, UserDbStorage.class, UserRowMapper.class, FilmService.class, FilmDbStorage.class,
         FilmRowMapper.class, LikeService.class, LikeStorage.class, MPAStorage.class, MPARowMapper.class,
         GenreStorage.class, GenreRowMapper.class, DirectorStorage.class, DirectorRowMapper.class,
-        EventStorage.class, EventRowMapper.class})
+        EventStorage.class, EventBatchWriter.class, EventRowMapper.class, SequenceIdAllocator.class, ReferenceDataCache.class,
+        PopularityIndex.class, LikeGraph.class, FriendGraph.class, RecommendationEngine.class,
+        FilmSearchIndex.class, FilmDetailsCache.class, FilmDetailsExtractor.class, LikeCounter.class, ParallelLookups.class,
+        ResourceVersions.class})
 @AutoConfigureTestDatabase
 class RecommendationsTest {
     private final UserService userService;
@@ -35,6 +52,8 @@ class RecommendationsTest {
     private final LikeService likeService;
 
     @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DirtiesContext
     void filmRecommendationIfTheSameLike() {
         User user1 = new User(null, "email1", "login1", "name1", "pass1", LocalDate.now().minusDays(1));
         User user2 = new User(null, "email2", "login2", "name2", "pass2", LocalDate.now().minusDays(1));
@@ -70,4 +89,44 @@ class RecommendationsTest {
         assertEquals(1, recommendations.size());
         assertEquals(film2.getId(), recommendations.get(0).getId());
     }
-}
\ No newline at end of file
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DirtiesContext
+    void recommendationFollowsCoLikerWhoBecomesMoreSimilar() {
+        User user1 = userService.create(new User(null, "email1", "login1", "name1", "pass1", LocalDate.of(1990, 1, 1)));
+        User user2 = userService.create(new User(null, "email2", "login2", "name2", "pass2", LocalDate.of(1990, 1, 1)));
+        User user3 = userService.create(new User(null, "email3", "login3", "name3", "pass3", LocalDate.of(1990, 1, 1)));
+        Film shared = createFilm("Shared");
+        Film other = createFilm("Other");
+        Film ofUser2 = createFilm("Liked by user2");
+        Film ofUser3 = createFilm("Liked by user3");
+
+        likeService.addLike(shared.getId(), user1.getId());
+        likeService.addLike(other.getId(), user1.getId());
+        likeService.addLike(shared.getId(), user2.getId());
+        likeService.addLike(ofUser2.getId(), user2.getId());
+        likeService.addLike(shared.getId(), user3.getId());
+        likeService.addLike(ofUser3.getId(), user3.getId());
+
+        assertEquals(List.of(ofUser2.getId()), recommendedIds(user1.getId()));
+
+        likeService.addLike(other.getId(), user3.getId());
+
+        assertEquals(List.of(ofUser3.getId()), recommendedIds(user1.getId()));
+    }
+
+    private Film createFilm(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Description of " + name);
+        film.setDuration(120);
+        film.setReleaseDate(LocalDate.of(2023, 1, 1));
+        film.setMpa(new MPA(1L, "G"));
+        return filmService.create(film);
+    }
+
+    private List<Long> recommendedIds(long userId) {
+        return userService.getRecommendations(userId).stream().map(Film::getId).toList();
+    }
+}
@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.EventType;
+import ru.yandex.practicum.filmorate.model.OperationType;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@AutoConfigureTestDatabase
+class EventBatchWriterTest {
+    private static final String USER_EVENTS_QUERY = "SELECT COUNT(*) FROM events WHERE user_id = ?";
+
+    private final JdbcTemplate jdbc;
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DirtiesContext
+    public void testReaderWaitsOnlyForEventsOfItsUser() {
+        jdbc.update("INSERT INTO users (id, email, login, name, birthday) VALUES "
+                + "(1, 'first@mail.ru', 'first', 'First', '1990-01-01'), "
+                + "(2, 'second@mail.ru', 'second', 'Second', '1990-01-01')");
+        // the batch of the first event lingers for two seconds waiting for more events
+        EventBatchWriter writer = new EventBatchWriter(jdbc, true, 100, 2000, 10, 100);
+        writer.start();
+        try {
+            writer.write(event(1, 1L));
+
+            long start = System.nanoTime();
+            writer.awaitWritten(2L);
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1000);
+            assertThat(jdbc.queryForObject(USER_EVENTS_QUERY, Integer.class, 1L)).isZero();
+
+            writer.awaitWritten(1L);
+            assertThat(jdbc.queryForObject(USER_EVENTS_QUERY, Integer.class, 1L)).isEqualTo(1);
+        } finally {
+            writer.stop();
+        }
+    }
+
+    private static Event event(long id, long userId) {
+        return Event.builder()
+                .eventId(id)
+                .userId(userId)
+                .eventType(EventType.LIKE)
+                .operation(OperationType.ADD)
+                .timestamp(1000L)
+                .entityId(1L)
+                .build();
+    }
+}
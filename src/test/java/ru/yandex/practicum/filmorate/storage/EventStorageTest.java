@@ -0,0 +1,109 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.EventType;
+import ru.yandex.practicum.filmorate.model.OperationType;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.graph.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.id.SequenceIdAllocator;
+import ru.yandex.practicum.filmorate.storage.mapper.EventRowMapper;
+import ru.yandex.practicum.filmorate.storage.mapper.UserRowMapper;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@JdbcTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({EventStorage.class, EventBatchWriter.class, EventRowMapper.class, UserDbStorage.class, UserRowMapper.class,
+        SequenceIdAllocator.class, FriendGraph.class})
+@AutoConfigureTestDatabase
+public class EventStorageTest {
+    private final EventStorage eventStorage;
+    private final UserDbStorage userStorage;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userStorage.create(User.builder()
+                .id(userStorage.nextId())
+                .email("feed@example.com")
+                .login("feedUser")
+                .name("Feed User")
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build());
+
+        // two events share a timestamp so the page boundary has to fall back to the id
+        for (long i = 0; i < 5; i++) {
+            eventStorage.addEvent(Event.builder()
+                    .userId(user.getId())
+                    .eventType(EventType.LIKE)
+                    .operation(OperationType.ADD)
+                    .timestamp(i == 3 ? 2000L : 1000L * i)
+                    .entityId(i)
+                    .build());
+        }
+    }
+
+    @Test
+    public void testPagesCoverWholeFeedInOrder() {
+        List<Event> feed = eventStorage.getEventsByUserId(user.getId());
+
+        List<Event> paged = new ArrayList<>();
+        List<Event> page = eventStorage.getEventsByUserId(user.getId(), null, 2);
+        while (!page.isEmpty()) {
+            assertThat(page.size()).isLessThanOrEqualTo(2);
+            paged.addAll(page);
+            page = eventStorage.getEventsByUserId(user.getId(), page.getLast().getEventId(), 2);
+        }
+
+        assertThat(feed).hasSize(5);
+        assertThat(paged).isEqualTo(feed);
+        assertThat(paged).extracting(Event::getEntityId).containsExactly(0L, 1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DirtiesContext
+    public void testQueuedEventsAreVisibleToFeed() {
+        // outside a transaction the events of setUp went through the background writer
+        assertThat(eventStorage.getEventsByUserId(user.getId()))
+                .extracting(Event::getEntityId).containsExactly(0L, 1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    public void testUnknownCursorIsRejected() {
+        assertThatThrownBy(() -> eventStorage.getEventsByUserId(user.getId(), -1L, 10))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    @Test
+    public void testCursorOfAnotherUserIsRejected() {
+        long eventId = eventStorage.getEventsByUserId(user.getId()).getFirst().getEventId();
+        User other = userStorage.create(User.builder()
+                .id(userStorage.nextId())
+                .email("other@example.com")
+                .login("otherUser")
+                .name("Other User")
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build());
+
+        assertThatThrownBy(() -> eventStorage.getEventsByUserId(other.getId(), eventId, 10))
+                .isInstanceOf(ValidationException.class);
+    }
+}
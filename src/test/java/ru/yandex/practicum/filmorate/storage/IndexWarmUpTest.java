@@ -0,0 +1,130 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.servlet.context.ServletWebServerInitializedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.MPA;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.enums.FilmsSearchBy;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.film.PopularityIndex;
+import ru.yandex.practicum.filmorate.storage.graph.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.graph.LikeGraph;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Writes through the storages from the moment the web server starts, as the first requests would, while
+ * the application is still starting up. Once it is ready, the in-memory indexes must hold every change.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:index-warm-up",
+        "logging.level.org.zalando.logbook=WARN"})
+@DirtiesContext
+class IndexWarmUpTest {
+    private static final int FILMS = 300;
+
+    @Autowired
+    private WarmUpWriter writer;
+    @Autowired
+    private PopularityIndex popularityIndex;
+    @Autowired
+    private FilmSearchIndex searchIndex;
+    @Autowired
+    private LikeGraph likeGraph;
+    @Autowired
+    private FriendGraph friendGraph;
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        WarmUpWriter warmUpWriter(FilmDbStorage filmStorage, UserDbStorage userStorage, LikeStorage likeStorage) {
+            return new WarmUpWriter(filmStorage, userStorage, likeStorage);
+        }
+    }
+
+    @Test
+    public void testWritesDuringStartupReachTheIndexes() throws Exception {
+        long[] userIds = writer.done.get(30, TimeUnit.SECONDS);
+
+        assertThat(popularityIndex.getTop(FILMS, null, null)).containsExactlyElementsOf(jdbc.queryForList(
+                "SELECT film_id FROM film_likes GROUP BY film_id ORDER BY COUNT(*) DESC, film_id", Long.class));
+        assertThat(searchIndex.search("warm-up", FilmsSearchBy.TITLE)).hasSize(FILMS);
+        assertThat(likeGraph.getFilms(userIds[0])).hasSize(FILMS);
+        assertThat(likeGraph.getFilms(userIds[1])).hasSize(FILMS / 2);
+        assertThat(friendGraph.getFriends(userIds[0])).containsExactly(userIds[1]);
+    }
+
+    static class WarmUpWriter implements ApplicationListener<ServletWebServerInitializedEvent> {
+        private final FilmDbStorage filmStorage;
+        private final UserDbStorage userStorage;
+        private final LikeStorage likeStorage;
+        private final CompletableFuture<long[]> done = new CompletableFuture<>();
+
+        WarmUpWriter(FilmDbStorage filmStorage, UserDbStorage userStorage, LikeStorage likeStorage) {
+            this.filmStorage = filmStorage;
+            this.userStorage = userStorage;
+            this.likeStorage = likeStorage;
+        }
+
+        @Override
+        public void onApplicationEvent(ServletWebServerInitializedEvent event) {
+            Thread.ofVirtual().start(() -> {
+                try {
+                    done.complete(write());
+                } catch (Throwable e) {
+                    done.completeExceptionally(e);
+                }
+            });
+        }
+
+        private long[] write() {
+            long first = createUser();
+            long second = createUser();
+            for (int i = 1; i <= FILMS; i++) {
+                long filmId = filmStorage.nextId();
+                filmStorage.create(Film.builder()
+                        .id(filmId)
+                        .name("Warm-up film " + i)
+                        .description("Written while the application starts")
+                        .mpa(new MPA(1L, "G"))
+                        .releaseDate(LocalDate.of(2000, 1, 1))
+                        .duration(100)
+                        .build());
+                likeStorage.addLike(first, filmId);
+                if (i % 2 == 0) {
+                    likeStorage.addLike(second, filmId);
+                }
+            }
+            userStorage.addFriendship(first, second);
+            return new long[]{first, second};
+        }
+
+        private long createUser() {
+            long userId = userStorage.nextId();
+            userStorage.create(User.builder()
+                    .id(userId)
+                    .email("user" + userId + "@example.com")
+                    .login("user" + userId)
+                    .name("User " + userId)
+                    .birthday(LocalDate.of(1990, 1, 1))
+                    .build());
+            return userId;
+        }
+    }
+}
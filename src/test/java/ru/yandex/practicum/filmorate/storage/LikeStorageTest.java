@@ -7,10 +7,19 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.MPA;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.film.LikeCounter;
+import ru.yandex.practicum.filmorate.storage.film.PopularityIndex;
+import ru.yandex.practicum.filmorate.storage.graph.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.id.SequenceIdAllocator;
+import ru.yandex.practicum.filmorate.storage.mapper.FilmDetailsExtractor;
 import ru.yandex.practicum.filmorate.storage.mapper.FilmRowMapper;
 import ru.yandex.practicum.filmorate.storage.mapper.UserRowMapper;
 import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
@@ -24,7 +33,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 @Import({LikeStorage.class, UserDbStorage.class,
         FilmDbStorage.class, UserRowMapper.class,
-        FilmRowMapper.class})
+        FilmRowMapper.class, SequenceIdAllocator.class, PopularityIndex.class, FilmSearchIndex.class,
+        FilmDetailsExtractor.class, LikeCounter.class, FriendGraph.class})
 @AutoConfigureTestDatabase
 class LikeStorageTest {
 
@@ -82,4 +92,17 @@ class LikeStorageTest {
 
         assertThat(likes).isEmpty();
     }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DirtiesContext
+    public void testRepeatedLikeChangesCountOnce() {
+        assertThat(likeStorage.addLike(1L, 1L)).isTrue();
+        assertThat(likeStorage.addLike(1L, 1L)).isFalse();
+        assertThat(filmStorage.getById(1L)).hasValueSatisfying(film -> assertThat(film.getLikeCount()).isEqualTo(1));
+
+        assertThat(likeStorage.removeLike(1L, 1L)).isTrue();
+        assertThat(likeStorage.removeLike(1L, 1L)).isFalse();
+        assertThat(filmStorage.getById(1L)).hasValueSatisfying(film -> assertThat(film.getLikeCount()).isZero());
+    }
 }
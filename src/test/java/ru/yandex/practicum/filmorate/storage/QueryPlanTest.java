@@ -0,0 +1,259 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.film.LikeCounter;
+import ru.yandex.practicum.filmorate.storage.film.PopularityIndex;
+import ru.yandex.practicum.filmorate.storage.graph.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.id.SequenceIdAllocator;
+import ru.yandex.practicum.filmorate.storage.mapper.*;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.LongFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Plan-shape smoke test: runs the storage layer against a small seeded data set, records every statement
+ * it prepares and checks with EXPLAIN that none of them reads a whole table.
+ * The data set (1k users, 2k films, 20k likes) only gives ANALYZE enough rows to pick indexes over scans;
+ * it is far from production scale and says nothing about query latency, which the JMH benchmarks measure.
+ * Statements without WHERE and LIMIT read whole tables by design (cache loads, recounts) and are skipped.
+ */
+@JdbcTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({QueryPlanTest.RecordingConfig.class, FilmDbStorage.class, FilmRowMapper.class, UserDbStorage.class,
+        UserRowMapper.class, LikeStorage.class, GenreStorage.class, GenreRowMapper.class, DirectorStorage.class,
+        DirectorRowMapper.class, MPAStorage.class, MPARowMapper.class, ReviewStorage.class, ReviewMapper.class,
+        EventStorage.class, EventBatchWriter.class, EventRowMapper.class, SequenceIdAllocator.class,
+        PopularityIndex.class, FriendGraph.class, FilmSearchIndex.class,
+        FilmDetailsExtractor.class, LikeCounter.class})
+@AutoConfigureTestDatabase
+class QueryPlanTest {
+    private static final int USERS = 1000;
+    private static final int FILMS = 2000;
+    private static final int DIRECTORS = 200;
+    private static final Pattern TABLE_SCAN = Pattern.compile("PUBLIC\\.(\\w+)\\.tableScan");
+    private static final Set<String> REFERENCE_TABLES = Set.of("GENRES", "MPA_RATINGS");
+
+    private final JdbcTemplate jdbc;
+    private final StatementRecorder recorder;
+    private final FilmDbStorage filmStorage;
+    private final UserDbStorage userStorage;
+    private final LikeStorage likeStorage;
+    private final GenreStorage genreStorage;
+    private final DirectorStorage directorStorage;
+    private final ReviewStorage reviewStorage;
+    private final EventStorage eventStorage;
+
+    @BeforeEach
+    void seed() {
+        jdbc.batchUpdate("INSERT INTO users (id, email, login, name, birthday) VALUES (?, ?, ?, ?, '1990-01-01')",
+                rows(USERS, id -> new Object[]{id, "user" + id + "@mail.ru", "user" + id, "User " + id}));
+        jdbc.batchUpdate("INSERT INTO directors (id, name) VALUES (?, ?)",
+                rows(DIRECTORS, id -> new Object[]{id, "Director " + id}));
+        jdbc.batchUpdate("INSERT INTO films (id, name, description, duration, release_date, mpa_id, like_count) "
+                        + "VALUES (?, ?, 'description', 100, DATEADD(DAY, ?, DATE '1950-01-01'), ?, ?)",
+                rows(FILMS, id -> new Object[]{id, "Film " + id, id * 9, id % 5 + 1, id % 50}));
+        jdbc.batchUpdate("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)",
+                rows(FILMS, id -> new Object[]{id, id % 6 + 1}));
+        jdbc.batchUpdate("INSERT INTO film_directors (film_id, director_id) VALUES (?, ?)",
+                rows(FILMS, id -> new Object[]{id, id % DIRECTORS + 1}));
+        jdbc.batchUpdate("INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)",
+                rows(FILMS * 10, n -> new Object[]{n % FILMS + 1, n / 20 % USERS + 1}));
+        jdbc.batchUpdate("INSERT INTO user_friendships (user1_id, user2_id) VALUES (?, ?)",
+                rows(USERS * 5, n -> new Object[]{n % USERS + 1, (n % USERS + n / USERS * 7 + 1) % USERS + 1}));
+        jdbc.batchUpdate("INSERT INTO reviews (content, is_positive, user_id, film_id) VALUES ('review', TRUE, ?, ?)",
+                rows(FILMS, n -> new Object[]{n % USERS + 1, n % FILMS + 1}));
+        jdbc.batchUpdate("INSERT INTO events (id, timestamp, user_id, event_type, operation, entity_id) "
+                        + "VALUES (?, ?, ?, 'LIKE', 'ADD', 1)",
+                rows(USERS * 10, n -> new Object[]{-n, n, n % USERS + 1}));
+        jdbc.execute("ANALYZE");
+    }
+
+    @Test
+    public void storageQueriesUseIndexes() {
+        recorder.start();
+
+        filmStorage.getById(1L);
+        filmStorage.getDetailsById(2L);
+        filmStorage.getByIds(List.of(3L, 4L, 5L));
+        filmStorage.getDirectorFilmSortedByLike(7L);
+        filmStorage.getDirectorFilmSortedByYear(7L);
+        filmStorage.getCommonFilms(1L, 2L);
+        List<Film> films = filmStorage.getByIds(List.of(10L, 11L, 12L));
+        genreStorage.getFilmsGenres(List.of(10L, 11L, 12L));
+        directorStorage.getFilmsDirectors(List.of(10L, 11L, 12L));
+        likeStorage.getFilmLikes(10L);
+        likeStorage.addLike(999L, 10L);
+        likeStorage.removeLike(999L, 10L);
+        genreStorage.updateGenres(films.getFirst());
+        directorStorage.updateDirectors(films.getFirst());
+        filmStorage.forEachWithDetails(film -> { });
+
+        userStorage.getById(1L);
+        userStorage.getFriends(1L);
+        userStorage.getCommonFriends(1L, 2L);
+        userStorage.addFriendship(1L, 500L);
+        userStorage.removeFriend(1L, 500L);
+        userStorage.forEach(user -> { });
+
+        reviewStorage.findTop(10);
+        reviewStorage.findTopByFilmId(5L, 10);
+        Long reviewId = reviewStorage.findTopByFilmId(5L, 1).getFirst().getReviewId();
+        reviewStorage.addLike(reviewId, 1L, true);
+        reviewStorage.deleteLike(reviewId, 1L);
+
+        eventStorage.getEventsByUserId(1L);
+        List<Event> page = eventStorage.getEventsByUserId(1L, null, 5);
+        eventStorage.getEventsByUserId(1L, page.getLast().getEventId(), 5);
+
+        recorder.stop();
+
+        Map<String, String> scans = new TreeMap<>();
+        recorder.statements().forEach((sql, params) -> {
+            if (isWholeTableRead(sql)) {
+                return;
+            }
+            String plan = jdbc.queryForObject("EXPLAIN " + sql, String.class, params.toArray());
+            Matcher matcher = TABLE_SCAN.matcher(plan);
+            while (matcher.find()) {
+                if (!REFERENCE_TABLES.contains(matcher.group(1))) {
+                    scans.put(sql.replaceAll("\\s+", " ").trim(), plan);
+                }
+            }
+        });
+
+        assertThat(recorder.statements()).hasSizeGreaterThan(20);
+        assertThat(scans).as("statements reading a whole table").isEmpty();
+    }
+
+    private static boolean isWholeTableRead(String sql) {
+        String normalized = sql.toUpperCase();
+        return !normalized.contains("WHERE") && !normalized.contains("LIMIT");
+    }
+
+    private static List<Object[]> rows(int count, LongFunction<Object[]> row) {
+        return LongStream.rangeClosed(1, count).mapToObj(row).toList();
+    }
+
+    /**
+     * Records the SQL and the last bound parameters of every statement prepared while recording
+     */
+    static class StatementRecorder {
+        private final Map<String, List<Object>> statements = new LinkedHashMap<>();
+        private volatile boolean recording;
+
+        void start() {
+            statements.clear();
+            recording = true;
+        }
+
+        void stop() {
+            recording = false;
+        }
+
+        Map<String, List<Object>> statements() {
+            return statements;
+        }
+
+        Connection wrap(Connection connection) {
+            return proxy(Connection.class, connection, (target, method, args) -> {
+                Object result = invoke(target, method, args);
+                if (recording && method.getName().equals("prepareStatement") && args[0] instanceof String sql) {
+                    List<Object> params = new ArrayList<>();
+                    statements.put(sql, params);
+                    return wrap((PreparedStatement) result, params);
+                }
+                return result;
+            });
+        }
+
+        private PreparedStatement wrap(PreparedStatement statement, List<Object> params) {
+            return proxy(PreparedStatement.class, statement, (target, method, args) -> {
+                if (method.getName().startsWith("set") && args != null && args.length >= 2
+                        && args[0] instanceof Integer index) {
+                    while (params.size() < index) {
+                        params.add(null);
+                    }
+                    params.set(index - 1, method.getName().equals("setNull") ? null : args[1]);
+                }
+                return invoke(target, method, args);
+            });
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, T target, Handler handler) {
+            InvocationHandler invocationHandler = (proxy, method, args) -> handler.handle(target, method, args);
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, invocationHandler);
+        }
+
+        @FunctionalInterface
+        private interface Handler {
+            Object handle(Object target, Method method, Object[] args) throws Throwable;
+        }
+    }
+
+    @TestConfiguration
+    static class RecordingConfig {
+        @Bean
+        StatementRecorder statementRecorder() {
+            return new StatementRecorder();
+        }
+
+        @Bean
+        static BeanPostProcessor recordingDataSource(@Lazy StatementRecorder recorder) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof DataSource dataSource)) {
+                        return bean;
+                    }
+                    return Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[]{DataSource.class},
+                            (proxy, method, args) -> {
+                                Object result = StatementRecorder.invoke(dataSource, method, args);
+                                return result instanceof Connection connection ? recorder.wrap(connection) : result;
+                            });
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.storage.mapper.ReviewMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({ReviewStorage.class, ReviewMapper.class})
+@AutoConfigureTestDatabase
+class ReviewStorageTest {
+    private static final int REVIEWS = 100;
+
+    private final ReviewStorage reviewStorage;
+    private final JdbcTemplate jdbc;
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DirtiesContext
+    public void testConcurrentFirstVotesOfUserKeepUsefulConsistent() throws Exception {
+        jdbc.update("INSERT INTO users (id, email, login, name, birthday) "
+                + "VALUES (1, 'neo@matrix.com', 'neo', 'Neo', '1964-09-02')");
+        jdbc.update("INSERT INTO films (id, name, description, duration, release_date, mpa_id) "
+                + "VALUES (1, 'Matrix', 'Neo', 120, '2000-07-16', 1)");
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            for (long reviewId = 1; reviewId <= REVIEWS; reviewId++) {
+                jdbc.update("INSERT INTO reviews (id, content, is_positive, user_id, film_id) "
+                        + "VALUES (?, 'Review', TRUE, 1, 1)", reviewId);
+                long id = reviewId;
+                CyclicBarrier start = new CyclicBarrier(2);
+                Future<?> like = executor.submit(() -> {
+                    start.await();
+                    reviewStorage.addLike(id, 1L, true);
+                    return null;
+                });
+                Future<?> dislike = executor.submit(() -> {
+                    start.await();
+                    reviewStorage.addLike(id, 1L, false);
+                    return null;
+                });
+                like.get();
+                dislike.get();
+            }
+        }
+
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM review_ratings", Integer.class)).isEqualTo(REVIEWS);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM reviews r WHERE r.useful <> "
+                + "(SELECT SUM(CASE WHEN rr.is_like THEN 1 ELSE -1 END) FROM review_ratings rr "
+                + "WHERE rr.review_id = r.id)", Integer.class)).isZero();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DirtiesContext
+    public void testRebuildUsefulDuringVotesLeavesUsefulConsistent() throws Exception {
+        int reviews = KeysetPages.PAGE_SIZE + REVIEWS;
+        int voters = 5;
+        for (long userId = 1; userId <= voters; userId++) {
+            jdbc.update("INSERT INTO users (id, email, login, name, birthday) "
+                    + "VALUES (?, ?, ?, 'Voter', '1990-01-01')", userId, "voter" + userId + "@mail.com", "voter" + userId);
+        }
+        jdbc.update("INSERT INTO films (id, name, description, duration, release_date, mpa_id) "
+                + "VALUES (1, 'Matrix', 'Neo', 120, '2000-07-16', 1)");
+        for (long reviewId = 1; reviewId <= reviews; reviewId++) {
+            jdbc.update("INSERT INTO reviews (id, content, is_positive, user_id, film_id, useful) "
+                    + "VALUES (?, 'Review', TRUE, 1, 1, 42)", reviewId);
+        }
+
+        int updated;
+        try (ExecutorService executor = Executors.newFixedThreadPool(voters + 1)) {
+            CyclicBarrier start = new CyclicBarrier(voters + 1);
+            List<Future<?>> votes = new ArrayList<>();
+            for (long userId = 1; userId <= voters; userId++) {
+                long voter = userId;
+                votes.add(executor.submit(() -> {
+                    start.await();
+                    for (long reviewId = reviews; reviewId >= 1; reviewId -= voter) {
+                        reviewStorage.addLike(reviewId, voter, reviewId % 2 == 0);
+                    }
+                    return null;
+                }));
+            }
+            Future<Integer> rebuild = executor.submit(() -> {
+                start.await();
+                return reviewStorage.rebuildUseful();
+            });
+            for (Future<?> vote : votes) {
+                vote.get();
+            }
+            updated = rebuild.get();
+        }
+
+        assertThat(updated).isEqualTo(reviews);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM reviews r WHERE r.useful <> COALESCE("
+                + "(SELECT SUM(CASE WHEN rr.is_like THEN 1 ELSE -1 END) FROM review_ratings rr "
+                + "WHERE rr.review_id = r.id), 0)", Integer.class)).isZero();
+    }
+}
@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FilmDetailsCacheTest {
+    private final AtomicInteger loads = new AtomicInteger();
+    private final FilmDetailsCache cache = new FilmDetailsCache(100);
+
+    @Test
+    public void testLoadOverlappingChangeOfAnotherFilmIsCached() {
+        cache.get(1L, () -> {
+            cache.invalidate(2L);
+            return load(1L);
+        });
+        cache.get(1L, () -> load(1L));
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testLoadOverlappingChangeOfSameFilmIsNotCached() {
+        cache.get(1L, () -> {
+            cache.invalidate(1L);
+            return load(1L);
+        });
+        cache.get(1L, () -> load(1L));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testLoadOverlappingInvalidateAllIsNotCached() {
+        cache.get(1L, () -> {
+            cache.invalidateAll();
+            return load(1L);
+        });
+        cache.get(1L, () -> load(1L));
+
+        assertEquals(2, loads.get());
+    }
+
+    private Optional<Film> load(long filmId) {
+        loads.incrementAndGet();
+        return Optional.of(Film.builder()
+                .id(filmId)
+                .name("Film " + filmId)
+                .genres(new LinkedHashSet<>())
+                .likes(new HashSet<>())
+                .directors(new LinkedHashSet<>())
+                .build());
+    }
+}
@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReferenceCacheTest {
+    private final AtomicInteger loads = new AtomicInteger();
+    private final ReferenceCache<Genre> cache = new ReferenceCache<>("genres", () -> {
+        loads.incrementAndGet();
+        return List.of(new Genre(1L, "Комедия"), new Genre(2L, "Драма"));
+    }, Genre::getId);
+
+    @Test
+    public void testUnknownIdIsNotFoundWithoutReload() {
+        assertTrue(cache.getById(1L).isPresent());
+        assertTrue(cache.getById(99L).isEmpty());
+        assertFalse(cache.containsAll(List.of(1L, 99L)));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.misses());
+        assertEquals(2, cache.hits());
+    }
+
+    @Test
+    public void testInvalidateLoadsTableAgain() {
+        cache.warmUp();
+        cache.invalidate();
+
+        assertTrue(cache.containsAll(List.of(1L, 2L)));
+
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.misses());
+        assertEquals(0, cache.hits());
+    }
+}
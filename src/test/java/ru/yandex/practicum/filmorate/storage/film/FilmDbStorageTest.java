@@ -9,14 +9,22 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import ru.yandex.practicum.filmorate.model.*;
 import ru.yandex.practicum.filmorate.model.enums.FilmsSearchBy;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.ResourceVersions;
 import ru.yandex.practicum.filmorate.storage.DirectorStorage;
 import ru.yandex.practicum.filmorate.storage.GenreStorage;
 import ru.yandex.practicum.filmorate.storage.LikeStorage;
 import ru.yandex.practicum.filmorate.storage.MPAStorage;
+import ru.yandex.practicum.filmorate.storage.cache.FilmDetailsCache;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.storage.graph.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.id.SequenceIdAllocator;
 import ru.yandex.practicum.filmorate.storage.mapper.*;
 import ru.yandex.practicum.filmorate.storage.mapper.DirectorRowMapper;
 import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
@@ -33,7 +41,10 @@ import static org.assertj.core.api.Assertions.assertThat;
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 @Import({FilmDbStorage.class, FilmRowMapper.class, MPAStorage.class, MPARowMapper.class,
         LikeStorage.class, DirectorStorage.class, DirectorRowMapper.class, UserDbStorage.class,
-        UserRowMapper.class, FilmService.class, GenreStorage.class, GenreRowMapper.class})
+        UserRowMapper.class, FilmService.class, GenreStorage.class, GenreRowMapper.class,
+        SequenceIdAllocator.class, ReferenceDataCache.class, PopularityIndex.class, FriendGraph.class,
+        FilmSearchIndex.class, FilmDetailsCache.class, FilmDetailsExtractor.class, LikeCounter.class,
+        ResourceVersions.class})
 @AutoConfigureTestDatabase
 public class FilmDbStorageTest {
     private final MPAStorage mpaStorage;
@@ -42,11 +53,15 @@ public class FilmDbStorageTest {
     private final LikeStorage likeStorage;
     private final DirectorStorage directorStorage;
     private final FilmService filmService;
+    private final ReferenceDataCache referenceDataCache;
+    private long inceptionId;
+    private long matrixId;
 
     @BeforeEach
     void setUp() {
         Director director = Director.builder().name("Spielberg").id(1L).build();
         directorStorage.create(director);
+        referenceDataCache.getDirectors().invalidate();
 
         User user = User.builder()
                 .id(1L)
@@ -85,20 +100,20 @@ public class FilmDbStorageTest {
                 .duration(120)
                 .build();
 
-        filmService.create(film);
-        filmService.create(film2);
+        inceptionId = filmService.create(film).getId();
+        matrixId = filmService.create(film2).getId();
         userStorage.create(user);
         userStorage.create(user2);
     }
 
     @Test
     public void testGetById() {
-        Optional<Film> filmOptional = filmStorage.getById(1L);
+        Optional<Film> filmOptional = filmStorage.getById(inceptionId);
 
         assertThat(filmOptional)
                 .isPresent()
                 .hasValueSatisfying(film -> {
-                    assertThat(film.getId()).isEqualTo(1L);
+                    assertThat(film.getId()).isEqualTo(inceptionId);
                     assertThat(film.getName()).isEqualTo("Inception");
                     assertThat(film.getDescription()).isEqualTo("A skilled thief is offered a chance to have his past crimes forgiven.");
                 });
@@ -114,7 +129,8 @@ public class FilmDbStorageTest {
     @Test
     public void testCreate() {
         Film film = new Film();
-        film.setId(6L);
+        long id = filmStorage.nextId();
+        film.setId(id);
         film.setName("New Film");
         film.setDescription("Description of new film");
         film.setDuration(120);
@@ -124,7 +140,7 @@ public class FilmDbStorageTest {
 
         filmStorage.create(film);
         mpaStorage.saveMPA(film);
-        Optional<Film> createdFilm = filmStorage.getById(6L);
+        Optional<Film> createdFilm = filmStorage.getById(id);
 
         assertThat(createdFilm)
                 .isPresent()
@@ -140,7 +156,7 @@ public class FilmDbStorageTest {
 
     @Test
     public void testUpdate() {
-        Optional<Film> optionalFilm = filmStorage.getById(1L);
+        Optional<Film> optionalFilm = filmStorage.getById(inceptionId);
         assertThat(optionalFilm).isPresent();
 
         Film film = optionalFilm.get();
@@ -151,7 +167,7 @@ public class FilmDbStorageTest {
 
         filmStorage.update(film);
 
-        Optional<Film> updatedFilm = filmStorage.getById(1L);
+        Optional<Film> updatedFilm = filmStorage.getById(inceptionId);
 
         assertThat(updatedFilm)
                 .isPresent()
@@ -166,7 +182,8 @@ public class FilmDbStorageTest {
     @Test
     public void testDeleteById() {
         Film film = new Film();
-        film.setId(6L);
+        long id = filmStorage.nextId();
+        film.setId(id);
         film.setName("New Film");
         film.setDescription("Description of new film");
         film.setDuration(120);
@@ -174,30 +191,32 @@ public class FilmDbStorageTest {
         film.setMpa(new MPA(1L, "G"));
 
         filmStorage.create(film);
-        filmStorage.deleteById(6L);
+        filmStorage.deleteById(id);
 
-        Optional<Film> optionalFilm = filmStorage.getById(6L);
+        Optional<Film> optionalFilm = filmStorage.getById(id);
 
         assertThat(optionalFilm).isNotPresent();
     }
 
 
     @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DirtiesContext
     public void testGetTop() {
 
-        List<Film> topFilms = filmStorage.getTop(2);
+        List<Film> topFilms = filmService.getTop(2, null, null);
 
         assertThat(topFilms).hasSize(2);
 
         Film topFilm = topFilms.iterator().next();
 
-        assertThat(topFilm.getId()).isEqualTo(1L);
+        assertThat(topFilm.getId()).isEqualTo(inceptionId);
     }
 
     @Test
     public void testGetCommonFilms() {
-        likeStorage.addLike(1L, 2L);
-        likeStorage.addLike(2L, 2L);
+        likeStorage.addLike(1L, matrixId);
+        likeStorage.addLike(2L, matrixId);
         List<Film> commonFilms = filmStorage.getCommonFilms(1L, 2L);
 
 
@@ -205,28 +224,75 @@ public class FilmDbStorageTest {
 
         Film commonFilm = commonFilms.getFirst();
         assertThat(commonFilm.getName()).isEqualTo("Matrix");
-        assertThat(commonFilm.getId()).isEqualTo(2L);
+        assertThat(commonFilm.getId()).isEqualTo(matrixId);
     }
 
     @Test
     public void testDirectorFilmsByLikes() {
         List<Film> directorFilms = filmStorage.getDirectorFilmSortedByLike(1L);
         assertThat(directorFilms).hasSize(1);
-        assertThat(directorFilms).first().isEqualTo(filmStorage.getById(2L).get());
+        assertThat(directorFilms).first().isEqualTo(filmStorage.getById(matrixId).get());
     }
 
     @Test
     public void testDirectorFilmsByYear() {
         List<Film> directorFilms = filmStorage.getDirectorFilmSortedByYear(1L);
         assertThat(directorFilms).hasSize(1);
-        assertThat(directorFilms).first().isEqualTo(filmStorage.getById(2L).get());
+        assertThat(directorFilms).first().isEqualTo(filmStorage.getById(matrixId).get());
     }
 
     @Test
+    public void testGetDetailsById() {
+        assertThat(filmStorage.getDetailsById(matrixId))
+                .isPresent()
+                .hasValueSatisfying(film -> {
+                    assertThat(film.getName()).isEqualTo("Matrix");
+                    assertThat(film.getMpa().getId()).isEqualTo(1L);
+                    assertThat(film.getDirectors()).extracting(Director::getName).containsExactly("Spielberg");
+                    assertThat(film.getGenres()).isEmpty();
+                });
+        assertThat(filmStorage.getDetailsById(99L)).isEmpty();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DirtiesContext
+    public void testCachedFilmDetailsFollowLikes() {
+        assertThat(filmService.getById(matrixId).getLikeCount()).isZero();
+
+        likeStorage.addLike(1L, matrixId);
+
+        assertThat(filmService.getById(matrixId).getLikeCount()).isEqualTo(1);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DirtiesContext
     public void searchByParam() {
         List<Film> films = filmStorage.searchByParam("matrix", FilmsSearchBy.TITLE);
         assertThat(films).hasSize(1);
-        assertThat(films).first().isEqualTo(filmStorage.getById(2L).get());
+        assertThat(films).first().isEqualTo(filmStorage.getById(matrixId).get());
 
     }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DirtiesContext
+    public void searchByDirectorFollowsUpdates() {
+        assertThat(filmStorage.searchByParam("BERG", FilmsSearchBy.DIRECTOR))
+                .extracting(Film::getId).containsExactly(matrixId);
+        assertThat(filmStorage.searchByParam("cep", FilmsSearchBy.ALL))
+                .extracting(Film::getId).containsExactly(inceptionId);
+
+        directorStorage.update(Director.builder().id(1L).name("Nolan").build());
+        Film inception = filmStorage.getById(inceptionId).get();
+        inception.setName("Interstellar");
+        inception.setDirectors(Set.of(Director.builder().id(1L).build()));
+        filmService.update(inception);
+
+        assertThat(filmStorage.searchByParam("berg", FilmsSearchBy.DIRECTOR)).isEmpty();
+        assertThat(filmStorage.searchByParam("cep", FilmsSearchBy.TITLE)).isEmpty();
+        assertThat(filmStorage.searchByParam("nol", FilmsSearchBy.DIRECTOR))
+                .extracting(Film::getId).containsExactlyInAnyOrder(inceptionId, matrixId);
+    }
 }
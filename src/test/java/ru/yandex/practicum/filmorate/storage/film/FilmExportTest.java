@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.KeysetPages;
+import ru.yandex.practicum.filmorate.storage.id.SequenceIdAllocator;
+import ru.yandex.practicum.filmorate.storage.mapper.FilmDetailsExtractor;
+import ru.yandex.practicum.filmorate.storage.mapper.FilmRowMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({FilmDbStorage.class, FilmRowMapper.class, FilmDetailsExtractor.class, SequenceIdAllocator.class,
+        PopularityIndex.class, FilmSearchIndex.class, LikeCounter.class})
+@AutoConfigureTestDatabase
+class FilmExportTest {
+    private final FilmDbStorage filmStorage;
+    private final JdbcTemplate jdbc;
+
+    @Test
+    public void testExportAssemblesEachFilmLikeGetDetailsById() {
+        jdbc.batchUpdate("INSERT INTO films (id, name, description, duration, release_date, mpa_id) " +
+                        "VALUES (?, ?, 'Description', 100, '2000-01-01', ?)",
+                LongStream.rangeClosed(1, 5).mapToObj(id -> new Object[]{id, "Film " + id, 1 + id % 5}).toList());
+        jdbc.update("INSERT INTO directors (id, name) VALUES (1, 'First'), (2, 'Second')");
+        jdbc.update("INSERT INTO film_genres (film_id, genre_id) VALUES (2, 3), (2, 1), (4, 6)");
+        jdbc.update("INSERT INTO film_directors (film_id, director_id) VALUES (2, 2), (2, 1), (5, 1)");
+
+        List<Film> exported = new ArrayList<>();
+        filmStorage.forEachWithDetails(exported::add);
+
+        assertThat(exported).extracting(Film::getId).containsExactly(1L, 2L, 3L, 4L, 5L);
+        for (Film film : exported) {
+            assertThat(film).isEqualTo(filmStorage.getDetailsById(film.getId()).orElseThrow());
+        }
+        assertThat(exported.get(1).getGenres()).hasSize(2);
+        assertThat(exported.get(1).getDirectors()).hasSize(2);
+    }
+
+    @Test
+    public void testExportReadsPastTheFirstPage() {
+        int count = KeysetPages.PAGE_SIZE * 2 + 1;
+        jdbc.batchUpdate("INSERT INTO films (id, name, description, duration, release_date, mpa_id) " +
+                        "VALUES (?, ?, 'Description', 100, '2000-01-01', 1)",
+                LongStream.rangeClosed(1, count).mapToObj(id -> new Object[]{id, "Film " + id}).toList());
+        jdbc.update("INSERT INTO film_genres (film_id, genre_id) VALUES (?, 1), (?, 2)",
+                KeysetPages.PAGE_SIZE, KeysetPages.PAGE_SIZE);
+
+        List<Film> exported = new ArrayList<>();
+        filmStorage.forEachWithDetails(exported::add);
+
+        assertThat(exported).extracting(Film::getId)
+                .containsExactlyElementsOf(LongStream.rangeClosed(1, count).boxed().toList());
+        assertThat(exported.get(KeysetPages.PAGE_SIZE - 1).getGenres()).hasSize(2);
+    }
+}
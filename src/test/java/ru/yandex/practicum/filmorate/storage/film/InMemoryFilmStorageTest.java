@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.MPA;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryFilmStorageTest {
+    private static final int FILMS = 20;
+    private static final int USERS = 200;
+
+    private InMemoryFilmStorage filmStorage;
+
+    @BeforeEach
+    void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        LongStream.rangeClosed(1, FILMS).forEach(id -> filmStorage.create(Film.builder()
+                .id(id)
+                .name("Film " + id)
+                .description("Description " + id)
+                .mpa(new MPA(1L, "G"))
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .build()));
+    }
+
+    @Test
+    public void testConcurrentLikesAreAllCounted() throws Exception {
+        // film n gets likes from n * 10 users, added by several threads at once
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (long userId = 1; userId <= USERS; userId++) {
+                long user = userId;
+                futures.add(executor.submit(() -> {
+                    for (long filmId = 1; filmId <= FILMS; filmId++) {
+                        if (user <= filmId * 10) {
+                            filmStorage.addLike(user, filmId);
+                            filmStorage.addLike(user, filmId);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(filmStorage.getLikes(7L)).hasSize(70);
+        assertThat(filmStorage.getTop(FILMS, null, null)).extracting(Film::getId)
+                .containsExactlyElementsOf(LongStream.iterate(FILMS, id -> id - 1).limit(FILMS).boxed().toList());
+    }
+
+    @Test
+    public void testTopFollowsLikeChanges() {
+        filmStorage.addLike(1L, 5L);
+        filmStorage.addLike(2L, 5L);
+        filmStorage.addLike(1L, 3L);
+
+        assertThat(filmStorage.getTop(2, null, null)).extracting(Film::getId).containsExactly(5L, 3L);
+        assertThat(filmStorage.getTop(2, null, 2000)).extracting(Film::getId).containsExactly(5L, 3L);
+        assertThat(filmStorage.getTop(2, null, 1999)).isEmpty();
+        assertThat(filmStorage.getTop(2, 1, null)).isEmpty();
+
+        filmStorage.removeLike(1L, 5L);
+        filmStorage.removeLike(2L, 5L);
+        filmStorage.deleteById(3L);
+
+        assertThat(filmStorage.getTop(2, null, null)).extracting(Film::getId).containsExactly(1L, 2L);
+        assertThat(filmStorage.getCommonFilms(1L, 2L)).isEmpty();
+    }
+}
@@ -0,0 +1,87 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.transaction.TestTransaction;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.storage.ChangeEvents;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({LikeCounter.class})
+@AutoConfigureTestDatabase
+@TestPropertySource(properties = "filmorate.likes.flush-interval-ms=3600000")
+class LikeCounterTest {
+    private static final String LIKE_COUNT_QUERY = "SELECT like_count FROM films WHERE id = ?";
+
+    private final LikeCounter likeCounter;
+    private final JdbcTemplate jdbc;
+    private final ApplicationEventPublisher events;
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DirtiesContext
+    public void testChangesOutsideTransactionAreWrittenBehind() {
+        jdbc.update("INSERT INTO films (id, name, description, duration, release_date, mpa_id) "
+                + "VALUES (1, 'Matrix', 'Neo', 120, '2000-07-16', 1)");
+
+        likeCounter.add(1L, 1);
+        likeCounter.add(1L, 1);
+        likeCounter.add(1L, 1);
+        likeCounter.add(1L, -1);
+
+        assertThat(likeCounter.pending(1L)).isEqualTo(2);
+        assertThat(jdbc.queryForObject(LIKE_COUNT_QUERY, Integer.class, 1L)).isZero();
+
+        likeCounter.flush();
+
+        assertThat(likeCounter.pending(1L)).isZero();
+        assertThat(jdbc.queryForObject(LIKE_COUNT_QUERY, Integer.class, 1L)).isEqualTo(2);
+    }
+
+    @Test
+    @DirtiesContext
+    public void testLikesAreCountedOnlyOnceCommitted() {
+        events.publishEvent(new ChangeEvents.LikeChanged(1L, 1L, true));
+
+        assertThat(likeCounter.pending(1L)).isZero();
+        TestTransaction.end();
+        assertThat(likeCounter.pending(1L)).isZero();
+
+        TestTransaction.start();
+        events.publishEvent(new ChangeEvents.LikeChanged(1L, 1L, true));
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+
+        assertThat(likeCounter.pending(1L)).isEqualTo(1);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DirtiesContext
+    public void testRecountDropsPendingChanges() {
+        jdbc.update("INSERT INTO films (id, name, description, duration, release_date, mpa_id) "
+                + "VALUES (1, 'Matrix', 'Neo', 120, '2000-07-16', 1)");
+        jdbc.update("INSERT INTO users (id, email, login, name, birthday) "
+                + "VALUES (1, 'neo@matrix.com', 'neo', 'Neo', '1964-09-02')");
+        jdbc.update("INSERT INTO film_likes (film_id, user_id) VALUES (1, 1)");
+        likeCounter.add(1L, 1);
+
+        likeCounter.recount();
+        likeCounter.flush();
+
+        assertThat(likeCounter.pending(1L)).isZero();
+        assertThat(jdbc.queryForObject(LIKE_COUNT_QUERY, Integer.class, 1L)).isEqualTo(1);
+    }
+}
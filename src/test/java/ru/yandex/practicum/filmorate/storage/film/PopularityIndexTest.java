@@ -0,0 +1,138 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MPA;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.LikeStorage;
+import ru.yandex.practicum.filmorate.storage.graph.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.id.SequenceIdAllocator;
+import ru.yandex.practicum.filmorate.storage.mapper.FilmDetailsExtractor;
+import ru.yandex.practicum.filmorate.storage.mapper.FilmRowMapper;
+import ru.yandex.practicum.filmorate.storage.mapper.GenreRowMapper;
+import ru.yandex.practicum.filmorate.storage.mapper.UserRowMapper;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({PopularityIndex.class, FilmDbStorage.class, FilmRowMapper.class, GenreStorage.class,
+        GenreRowMapper.class, LikeStorage.class, UserDbStorage.class, UserRowMapper.class,
+        SequenceIdAllocator.class, FriendGraph.class, FilmSearchIndex.class,
+        FilmDetailsExtractor.class, LikeCounter.class})
+@AutoConfigureTestDatabase
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class PopularityIndexTest {
+    private final PopularityIndex popularityIndex;
+    private final FilmDbStorage filmStorage;
+    private final GenreStorage genreStorage;
+    private final LikeStorage likeStorage;
+    private final UserDbStorage userStorage;
+    private final PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        createFilm(1L, 2000, 1L);
+        createFilm(2L, 2000, 2L);
+        createFilm(3L, 2010, 1L);
+        for (long id = 1; id <= 3; id++) {
+            userStorage.create(User.builder()
+                    .id(id)
+                    .email("user%d@example.com".formatted(id))
+                    .login("user" + id)
+                    .name("User " + id)
+                    .birthday(LocalDate.of(1990, 1, 1))
+                    .build());
+        }
+    }
+
+    @Test
+    public void testRanksByLikesThenId() {
+        likeStorage.addLike(1L, 3L);
+
+        assertThat(popularityIndex.getTop(10, null, null)).containsExactly(3L, 1L, 2L);
+    }
+
+    @Test
+    public void testTracksLikesIncrementally() {
+        assertThat(popularityIndex.getTop(10, null, null)).containsExactly(1L, 2L, 3L);
+
+        likeStorage.addLike(1L, 2L);
+        likeStorage.addLike(2L, 2L);
+        likeStorage.addLike(1L, 3L);
+
+        assertThat(popularityIndex.getTop(2, null, null)).containsExactly(2L, 3L);
+
+        likeStorage.removeLike(1L, 2L);
+        likeStorage.removeLike(2L, 2L);
+
+        assertThat(popularityIndex.getTop(10, null, null)).containsExactly(3L, 1L, 2L);
+    }
+
+    @Test
+    public void testFiltersByGenreAndYear() {
+        likeStorage.addLike(1L, 3L);
+
+        assertThat(popularityIndex.getTop(10, 1, null)).containsExactly(3L, 1L);
+        assertThat(popularityIndex.getTop(10, null, 2000)).containsExactly(1L, 2L);
+        assertThat(popularityIndex.getTop(10, 1, 2000)).containsExactly(1L);
+        assertThat(popularityIndex.getTop(10, 3, 2000)).isEmpty();
+    }
+
+    @Test
+    public void testTakesBackLikesOfDeletedUser() {
+        likeStorage.addLike(1L, 3L);
+        likeStorage.addLike(2L, 3L);
+        likeStorage.addLike(1L, 2L);
+
+        userStorage.deleteById(1L);
+
+        assertThat(popularityIndex.getTop(10, null, null)).containsExactly(3L, 1L, 2L);
+        assertThat(filmStorage.getById(3L)).hasValueSatisfying(film -> assertThat(film.getLikeCount()).isEqualTo(1));
+        assertThat(filmStorage.getById(2L)).hasValueSatisfying(film -> assertThat(film.getLikeCount()).isZero());
+    }
+
+    @Test
+    public void testIgnoresRolledBackLikes() {
+        assertThat(popularityIndex.getTop(10, null, null)).containsExactly(1L, 2L, 3L);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            likeStorage.addLike(1L, 3L);
+            status.setRollbackOnly();
+        });
+
+        assertThat(popularityIndex.getTop(10, null, null)).containsExactly(1L, 2L, 3L);
+    }
+
+    private void createFilm(long id, int year, long genreId) {
+        Film film = Film.builder()
+                .id(id)
+                .name("Film " + id)
+                .description("Description " + id)
+                .mpa(new MPA(1L, "G"))
+                .genres(Set.of(new Genre(genreId, null)))
+                .releaseDate(LocalDate.of(year, 1, 1))
+                .duration(100)
+                .build();
+        filmStorage.create(film);
+        genreStorage.saveGenres(film);
+    }
+}
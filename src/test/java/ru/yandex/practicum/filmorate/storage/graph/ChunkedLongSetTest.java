@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.storage.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChunkedLongSetTest {
+
+    @Test
+    public void testAddAndRemoveKeepOrder() {
+        ChunkedLongSet set = new ChunkedLongSet();
+        assertTrue(set.add(5));
+        assertTrue(set.add(1));
+        assertTrue(set.add(3));
+        assertFalse(set.add(3));
+        assertArrayEquals(new long[]{1, 3, 5}, set.toArray());
+
+        assertTrue(set.remove(3));
+        assertFalse(set.remove(4));
+        assertArrayEquals(new long[]{1, 5}, set.toArray());
+        assertTrue(set.contains(5));
+        assertFalse(set.contains(3));
+    }
+
+    @Test
+    public void testMatchesTreeSetAcrossChunks() {
+        Random random = new Random(42);
+        TreeSet<Long> expected = new TreeSet<>();
+        long[] loaded = new long[ChunkedLongSet.CHUNK * 3];
+        for (int i = 0; i < loaded.length; i++) {
+            loaded[i] = i * 4L;
+            expected.add(loaded[i]);
+        }
+        ChunkedLongSet set = ChunkedLongSet.of(loaded);
+        for (int i = 0; i < 50_000; i++) {
+            long value = random.nextInt(ChunkedLongSet.CHUNK * 16);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+        }
+
+        assertEquals(expected.size(), set.size());
+        assertArrayEquals(expected.stream().mapToLong(Long::longValue).toArray(), set.toArray());
+        for (long value : expected) {
+            set.remove(value);
+        }
+        assertEquals(0, set.size());
+        assertArrayEquals(SortedLongArrays.EMPTY, set.toArray());
+    }
+}
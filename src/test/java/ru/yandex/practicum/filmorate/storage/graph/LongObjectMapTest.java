@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.storage.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LongObjectMapTest {
+
+    @Test
+    public void testMatchesHashMapUnderRandomChanges() {
+        // a small key range keeps probe chains long, so removals have entries to shift back
+        Random random = new Random(7);
+        LongObjectMap<String> map = new LongObjectMap<>();
+        Map<Long, String> expected = new HashMap<>();
+
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(2_000) - 1_000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                String value = "v" + i;
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (long key = -1_000; key < 1_000; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+        Map<Long, String> iterated = new HashMap<>();
+        map.forEach(iterated::put);
+        assertEquals(expected, iterated);
+    }
+
+    @Test
+    public void testComputeIfAbsentKeepsExistingValue() {
+        LongObjectMap<long[]> map = new LongObjectMap<>(1);
+
+        long[] first = map.computeIfAbsent(0, key -> new long[]{1});
+        long[] second = map.computeIfAbsent(0, key -> new long[]{2});
+
+        assertEquals(first, second);
+        assertNull(map.get(Long.MIN_VALUE));
+    }
+}
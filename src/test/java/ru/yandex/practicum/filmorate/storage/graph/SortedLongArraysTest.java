@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.storage.graph;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SortedLongArraysTest {
+
+    @Test
+    public void testInsertAndRemoveKeepOrder() {
+        long[] values = SortedLongArrays.insert(null, 5);
+        values = SortedLongArrays.insert(values, 1);
+        values = SortedLongArrays.insert(values, 3);
+        assertSame(values, SortedLongArrays.insert(values, 3));
+        assertArrayEquals(new long[]{1, 3, 5}, values);
+
+        assertArrayEquals(new long[]{1, 5}, SortedLongArrays.remove(values, 3));
+        assertSame(values, SortedLongArrays.remove(values, 4));
+    }
+
+    @Test
+    public void testIntersectionAndDifference() {
+        long[] left = {1, 2, 4, 7, 9};
+        long[] right = {2, 3, 7, 10};
+
+        assertArrayEquals(new long[]{2, 7}, SortedLongArrays.intersection(left, right));
+        assertArrayEquals(new long[]{1, 4, 9}, SortedLongArrays.difference(left, right));
+        assertArrayEquals(new long[]{1, 2, 3}, SortedLongArrays.of(new long[]{3, 1, 2, 3, 0}, 4));
+    }
+}
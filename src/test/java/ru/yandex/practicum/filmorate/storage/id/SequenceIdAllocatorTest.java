@@ -0,0 +1,56 @@
+package ru.yandex.practicum.filmorate.storage.id;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({SequenceIdAllocator.class})
+@AutoConfigureTestDatabase
+class SequenceIdAllocatorTest {
+    private final SequenceIdAllocator idAllocator;
+
+    @Test
+    public void testIdsAreSequentialAcrossBlocks() {
+        long first = idAllocator.nextId(SequenceIdAllocator.DIRECTOR_SEQUENCE);
+
+        for (int i = 1; i <= SequenceIdAllocator.BLOCK_SIZE * 2; i++) {
+            assertThat(idAllocator.nextId(SequenceIdAllocator.DIRECTOR_SEQUENCE)).isEqualTo(first + i);
+        }
+    }
+
+    @Test
+    public void testIdsAreUniqueUnderConcurrentAllocation() {
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        IntStream.range(0, 1000).parallel()
+                .forEach(i -> ids.add(idAllocator.nextId(SequenceIdAllocator.USER_SEQUENCE)));
+
+        assertThat(ids).hasSize(1000);
+    }
+
+    @Test
+    public void testBulkIdsDoNotOverlapSingleIds() {
+        long single = idAllocator.nextId(SequenceIdAllocator.FILM_SEQUENCE);
+        long[] bulk = idAllocator.nextIds(SequenceIdAllocator.FILM_SEQUENCE, SequenceIdAllocator.BLOCK_SIZE * 3 + 1);
+        long next = idAllocator.nextId(SequenceIdAllocator.FILM_SEQUENCE);
+
+        Set<Long> ids = new HashSet<>();
+        ids.add(single);
+        ids.add(next);
+        Arrays.stream(bulk).forEach(ids::add);
+        assertThat(ids).hasSize(bulk.length + 2);
+    }
+}
@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.storage.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.graph.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.id.SequenceIdAllocator;
+import ru.yandex.practicum.filmorate.storage.mapper.UserRowMapper;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@JdbcTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({JdbcMetricsConfiguration.class, JdbcMetricsTest.RegistryConfig.class, UserDbStorage.class,
+        UserRowMapper.class, SequenceIdAllocator.class, FriendGraph.class})
+@AutoConfigureTestDatabase
+class JdbcMetricsTest {
+    private final MeterRegistry registry;
+    private final UserDbStorage userStorage;
+    private final JdbcTemplate jdbc;
+
+    @TestConfiguration
+    static class RegistryConfig {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Test
+    public void testStatementsAreNamedAfterStorageMethods() {
+        for (long id = 1; id <= 3; id++) {
+            userStorage.create(User.builder()
+                    .id(id)
+                    .email("user" + id + "@example.com")
+                    .login("user" + id)
+                    .birthday(LocalDate.of(1990, 1, 1))
+                    .build());
+        }
+        userStorage.getAll();
+        userStorage.getAll();
+
+        assertThat(registry.get(JdbcMetrics.STATEMENT_TIMER).tags("name", "user.getAll", "outcome", "success")
+                .timer().count()).isEqualTo(2);
+        assertThat(registry.get(JdbcMetrics.ROWS_SUMMARY).tag("name", "user.getAll").summary().totalAmount())
+                .isEqualTo(6);
+        assertThat(registry.get(JdbcMetrics.ROWS_SUMMARY).tag("name", "user.create").summary().totalAmount())
+                .isEqualTo(3);
+    }
+
+    @Test
+    public void testFailedStatementsAreTaggedAsErrors() {
+        jdbc.update("INSERT INTO mpa_ratings (id, name) VALUES (100, 'X')");
+
+        assertThatThrownBy(() -> jdbc.update("INSERT INTO mpa_ratings (id, name) VALUES (100, 'X')"))
+                .isInstanceOf(DataAccessException.class);
+
+        assertThat(registry.get(JdbcMetrics.STATEMENT_TIMER).tags("name", JdbcMetrics.OTHER, "outcome", "error")
+                .timer().count()).isEqualTo(1);
+    }
+}
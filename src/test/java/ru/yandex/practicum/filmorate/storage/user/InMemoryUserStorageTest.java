@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryUserStorageTest {
+    private final InMemoryUserStorage userStorage = new InMemoryUserStorage();
+
+    @Test
+    public void testFriendshipsBehaveLikeDbStorage() {
+        LongStream.rangeClosed(1, 4).forEach(id -> userStorage.create(User.builder()
+                .id(id)
+                .email("user" + id + "@example.com")
+                .login("user" + id)
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build()));
+
+        userStorage.addFriendship(1L, 3L);
+        userStorage.addFriendship(1L, 4L);
+        userStorage.addFriendship(1L, 4L);
+        userStorage.addFriendship(2L, 4L);
+
+        assertThat(userStorage.getFriends(1L)).extracting(User::getId).containsExactlyInAnyOrder(3L, 4L);
+        assertThat(userStorage.getFriends(3L)).isEmpty();
+        assertThat(userStorage.getCommonFriends(1L, 2L)).extracting(User::getId).containsExactly(4L);
+
+        userStorage.deleteById(4L);
+
+        assertThat(userStorage.getFriends(1L)).extracting(User::getId).containsExactly(3L);
+        assertThat(userStorage.getById(4L)).isEmpty();
+    }
+}
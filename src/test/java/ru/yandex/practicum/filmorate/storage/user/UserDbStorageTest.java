@@ -7,18 +7,24 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.graph.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.id.SequenceIdAllocator;
 import ru.yandex.practicum.filmorate.storage.mapper.UserRowMapper;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 @JdbcTest
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
-@Import({UserDbStorage.class, UserRowMapper.class})
+@Import({UserDbStorage.class, UserRowMapper.class, SequenceIdAllocator.class, FriendGraph.class})
 @AutoConfigureTestDatabase
 public class UserDbStorageTest {
 
@@ -62,6 +68,13 @@ public class UserDbStorageTest {
                 });
     }
 
+    @Test
+    public void testGetByIdsKeepsOrderAndSkipsMissing() {
+        List<User> users = userStorage.getByIds(List.of(2L, 3L, 1L));
+
+        assertThat(users).extracting(User::getId).containsExactly(2L, 1L);
+    }
+
     @Test
     public void testGetAll() {
         List<User> users = userStorage.getAll();
@@ -130,4 +143,30 @@ public class UserDbStorageTest {
         Optional<User> deletedUser = userStorage.getById(1L);
         assertThat(deletedUser).isNotPresent();
     }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DirtiesContext
+    public void testCommonFriendsFollowFriendshipChanges() {
+        LongStream.rangeClosed(3, 6).forEach(id -> userStorage.create(User.builder()
+                .id(id)
+                .email("user" + id + "@example.com")
+                .login("user" + id)
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build()));
+        userStorage.addFriendship(1L, 5L);
+        userStorage.addFriendship(1L, 3L);
+        userStorage.addFriendship(2L, 3L);
+        userStorage.addFriendship(2L, 5L);
+        userStorage.addFriendship(2L, 6L);
+
+        assertThat(userStorage.getCommonFriends(1L, 2L)).extracting(User::getId).containsExactly(3L, 5L);
+
+        userStorage.addFriendship(1L, 6L);
+        userStorage.removeFriend(2L, 3L);
+        userStorage.deleteById(5L);
+
+        assertThat(userStorage.getCommonFriends(1L, 2L)).extracting(User::getId).containsExactly(6L);
+        assertThat(userStorage.getCommonFriends(3L, 4L)).isEmpty();
+    }
 }